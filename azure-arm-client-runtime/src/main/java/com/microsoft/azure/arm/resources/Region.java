@@ -9,15 +9,16 @@ package com.microsoft.azure.arm.resources;
 import com.fasterxml.jackson.annotation.JsonValue;
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Enumeration of the Azure datacenter regions. See https://azure.microsoft.com/regions/
  */
 public final class Region {
     // This needs to be at the beginning for the initialization to happen correctly
-    private static final Map<String, Region> VALUES_BY_NAME = new HashMap<>();
+    private static final ConcurrentMap<String, Region> VALUES_BY_NAME = new ConcurrentHashMap<>();
 
     // CHECKSTYLE IGNORE Javadoc FOR NEXT 50 LINES
     /**************************************************
@@ -116,7 +117,7 @@ public final class Region {
     private Region(String name, String label) {
         this.name = name;
         this.label = label;
-        VALUES_BY_NAME.put(name.toLowerCase(), this);
+        VALUES_BY_NAME.putIfAbsent(name.toLowerCase(Locale.ROOT), this);
     }
 
     /**
@@ -127,12 +128,14 @@ public final class Region {
      * @return the newly created region
      */
     public static Region create(String name, String label) {
-        Region region = VALUES_BY_NAME.get(name.toLowerCase());
+        String key = name.toLowerCase(Locale.ROOT);
+        Region region = VALUES_BY_NAME.get(key);
         if (region != null) {
             return region;
-        } else {
-            return new Region(name, label);
         }
+        new Region(name, label);
+        // another thread may have created the same region first
+        return VALUES_BY_NAME.get(key);
     }
 
     @JsonValue
@@ -167,7 +170,7 @@ public final class Region {
             return null;
         }
 
-        return VALUES_BY_NAME.get(labelOrName.toLowerCase().replace(" ", ""));
+        return lookup(labelOrName);
     }
 
     /**
@@ -181,12 +184,21 @@ public final class Region {
             return null;
         }
 
-        Region region = VALUES_BY_NAME.get(name.toLowerCase().replace(" ", ""));
+        Region region = lookup(name);
         if (region != null) {
             return region;
         } else {
-            return Region.create(name.toLowerCase().replace(" ", ""), name);
+            return Region.create(name.toLowerCase(Locale.ROOT).replace(" ", ""), name);
+        }
+    }
+
+    private static Region lookup(String labelOrName) {
+        // region names are lower case without spaces, look them up as is first
+        Region region = VALUES_BY_NAME.get(labelOrName);
+        if (region == null) {
+            region = VALUES_BY_NAME.get(labelOrName.toLowerCase(Locale.ROOT).replace(" ", ""));
         }
+        return region;
     }
 
     @Override
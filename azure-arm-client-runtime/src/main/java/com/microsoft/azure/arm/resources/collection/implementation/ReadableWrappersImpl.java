@@ -33,7 +33,7 @@ public abstract class ReadableWrappersImpl<
             public Observable<T> typeConvertAsync(InnerT inner) {
                 return Observable.just((T) wrapModel(inner));
             }
-        };
+        }.withLazyConversion(true);
     }
 
     protected abstract ImplT wrapModel(InnerT inner);
@@ -14,7 +14,10 @@ import rx.Observable;
 import rx.functions.Func1;
 
 import java.io.IOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * The base class for converting {@link PagedList} of one type of resource to
@@ -22,10 +25,21 @@ import java.util.ArrayList;
  * This converter is useful in converting inner top level resources into fluent
  * top level resources.
  *
+ * The items of a page are converted with up to {@link #withMaxConcurrency(int)}
+ * conversions running at the same time, and keep the order of the original page.
+ * With {@link #withLazyConversion(boolean)}, the items of a page are only converted
+ * once the converted list reaches the page.
+ *
  * @param <U> the type of Resource to convert from
  * @param <V> the type of Resource to convert to
  */
 public abstract class PagedListConverter<U, V> {
+    /** The default maximum number of conversions running at the same time. */
+    private static final int DEFAULT_MAX_CONCURRENCY = 16;
+
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    private boolean lazyConversion;
+
     /**
      * Override this method to define how to convert each Resource item
      * individually.
@@ -44,6 +58,36 @@ public abstract class PagedListConverter<U, V> {
         return true;
     }
 
+    /**
+     * Sets the maximum number of items of a page converted at the same time, 16 by default.
+     *
+     * @param maxConcurrency the maximum number of conversions running at the same time
+     * @return the converter
+     */
+    public PagedListConverter<U, V> withMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency <= 0: " + maxConcurrency);
+        }
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    /**
+     * Sets whether the items of a page are only converted once the converted list reaches the
+     * page, rather than when the page is fetched. The converted list fetches a page ahead of the
+     * items it holds, so this saves converting the items of a page that is never reached.
+     *
+     * Until they are converted, the items of a page are counted as the items kept by
+     * {@link #filter(Object)}, so each kept item is expected to be converted to one item.
+     *
+     * @param lazyConversion true to convert the items of a page when the page is reached
+     * @return the converter
+     */
+    public PagedListConverter<U, V> withLazyConversion(boolean lazyConversion) {
+        this.lazyConversion = lazyConversion;
+        return this;
+    }
+
     /**
      * Converts the paged list.
      *
@@ -59,44 +103,98 @@ public abstract class PagedListConverter<U, V> {
                 }
             };
         }
-        Page<U> uPage = uList.currentPage();
-        final PageImpl<V> vPage = new PageImpl<>();
-        vPage.setNextPageLink(uPage.nextPageLink());
-        vPage.setItems(new ArrayList<V>());
-        loadConvertedList(uPage, vPage);
-        return new PagedList<V>(vPage) {
+        return new PagedList<V>(convertPage(uList.currentPage())) {
             @Override
             public Page<V> nextPage(String nextPageLink) throws RestException, IOException {
                 Page<U> uPage = uList.nextPage(nextPageLink);
-                final PageImpl<V> vPage = new PageImpl<>();
-                vPage.setNextPageLink(uPage.nextPageLink());
-                vPage.setItems(new ArrayList<V>());
-                loadConvertedList(uPage, vPage);
-                return vPage;
+                return uPage == null ? null : convertPage(uPage);
             }
         };
     }
 
-    private void loadConvertedList(final Page<U> uPage, final Page<V> vPage) {
-        Observable.from(uPage.items())
-                .filter(new Func1<U, Boolean>() {
-                    @Override
-                    public Boolean call(U u) {
-                        return filter(u);
-                    }
-                })
-                .flatMap(new Func1<U, Observable<V>>() {
+    private Page<V> convertPage(Page<U> uPage) {
+        final List<U> kept = new ArrayList<>();
+        if (uPage.items() != null) {
+            for (U u : uPage.items()) {
+                if (filter(u)) {
+                    kept.add(u);
+                }
+            }
+        }
+        PageImpl<V> vPage = new PageImpl<>();
+        vPage.setNextPageLink(uPage.nextPageLink());
+        vPage.setItems(lazyConversion ? new LazilyConvertedList(kept) : convertItems(kept));
+        return vPage;
+    }
+
+    /**
+     * Converts items, keeping their order.
+     *
+     * @param uItems the items to convert
+     * @return the converted items
+     */
+    private List<V> convertItems(List<U> uItems) {
+        if (uItems.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return Observable.from(uItems)
+                .concatMapEager(new Func1<U, Observable<V>>() {
                     @Override
                     public Observable<V> call(U u) {
                         return typeConvertAsync(u);
                     }
-                })
-                .map(new Func1<V, V>() {
-                    @Override
-                    public V call(V v) {
-                        vPage.items().add(v);
-                        return v;
-                    }
-                }).toBlocking().subscribe();
+                }, maxConcurrency, maxConcurrency)
+                .toList()
+                .toBlocking()
+                .single();
+    }
+
+    /**
+     * The items of a page, converted on first access.
+     */
+    private final class LazilyConvertedList extends AbstractList<V> {
+        private final List<U> uItems;
+        private List<V> vItems;
+
+        LazilyConvertedList(List<U> uItems) {
+            this.uItems = uItems;
+        }
+
+        @Override
+        public V get(int index) {
+            return converted().get(index);
+        }
+
+        @Override
+        public int size() {
+            return vItems == null ? uItems.size() : vItems.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return converted().iterator();
+        }
+
+        @Override
+        public Object[] toArray() {
+            return converted().toArray();
+        }
+
+        @Override
+        public <T> T[] toArray(T[] a) {
+            return converted().toArray(a);
+        }
+
+        private synchronized List<V> converted() {
+            if (vItems == null) {
+                vItems = convertItems(uItems);
+            }
+            return vItems;
+        }
     }
 }
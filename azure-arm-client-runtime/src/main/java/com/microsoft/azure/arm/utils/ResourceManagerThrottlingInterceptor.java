@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -33,7 +34,7 @@ import java.util.regex.Pattern;
  */
 public class ResourceManagerThrottlingInterceptor implements Interceptor {
     private static final String LOGGING_HEADER = "x-ms-logging-context";
-    private static final ConcurrentMap<String, ReentrantLock> REENTRANT_LOCK_MAP = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Gate> GATE_MAP = new ConcurrentHashMap<>();
 
     @Override
     public Response intercept(Chain chain) throws IOException {
@@ -42,13 +43,10 @@ public class ResourceManagerThrottlingInterceptor implements Interceptor {
         if (subscriptionId == null) {
             subscriptionId = "global";
         }
-        REENTRANT_LOCK_MAP.putIfAbsent(subscriptionId, new ReentrantLock());
+        GATE_MAP.putIfAbsent(subscriptionId, new Gate());
+        Gate gate = GATE_MAP.get(subscriptionId);
         try {
-            synchronized (REENTRANT_LOCK_MAP.get(subscriptionId)) {
-                if (REENTRANT_LOCK_MAP.get(subscriptionId).isLocked()) {
-                    REENTRANT_LOCK_MAP.get(subscriptionId).wait();
-                }
-            }
+            gate.awaitOpen();
         } catch (InterruptedException e) {
             throw new IOException(e);
         }
@@ -57,17 +55,13 @@ public class ResourceManagerThrottlingInterceptor implements Interceptor {
             return response;
         }
 
-        try {
-            synchronized (REENTRANT_LOCK_MAP.get(subscriptionId)) {
-                if (REENTRANT_LOCK_MAP.get(subscriptionId).isLocked()) {
-                    REENTRANT_LOCK_MAP.get(subscriptionId).wait();
-                    return chain.proceed(chain.request());
-                } else {
-                    REENTRANT_LOCK_MAP.get(subscriptionId).lock();
-                }
+        if (!gate.tryClose()) {
+            try {
+                gate.awaitOpen();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
             }
-        } catch (InterruptedException e) {
-            throw new IOException(e);
+            return chain.proceed(chain.request());
         }
 
         try {
@@ -75,9 +69,12 @@ public class ResourceManagerThrottlingInterceptor implements Interceptor {
             int retryAfter = 0;
             if (retryAfterHeader != null) {
                 DateTime retryWhen = null;
-                try {
-                    retryWhen = new DateTimeRfc1123(retryAfterHeader).dateTime();
-                } catch (Exception e) { }
+                // delay-seconds is the common form, don't pay for a failed date parse
+                if (retryAfterHeader.isEmpty() || !Character.isDigit(retryAfterHeader.charAt(0))) {
+                    try {
+                        retryWhen = new DateTimeRfc1123(retryAfterHeader).dateTime();
+                    } catch (Exception e) { }
+                }
                 if (retryWhen == null) {
                     retryAfter = Integer.parseInt(retryAfterHeader);
                 } else {
@@ -110,10 +107,7 @@ public class ResourceManagerThrottlingInterceptor implements Interceptor {
         } catch (Throwable t) {
             throw new IOException(t);
         } finally {
-            synchronized (REENTRANT_LOCK_MAP.get(subscriptionId)) {
-                REENTRANT_LOCK_MAP.get(subscriptionId).unlock();
-                REENTRANT_LOCK_MAP.get(subscriptionId).notifyAll();
-            }
+            gate.open();
         }
     }
 
@@ -126,4 +120,49 @@ public class ResourceManagerThrottlingInterceptor implements Interceptor {
         Buffer buffer = source.buffer();
         return buffer.readUtf8();
     }
+
+    /**
+     * The gate of a subscription, closed while a throttled request waits to be retried.
+     * It uses a lock rather than monitors so that waiting threads don't pin their carriers
+     * when running on virtual threads.
+     */
+    private static final class Gate {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition opened = lock.newCondition();
+        private boolean closed;
+
+        private void awaitOpen() throws InterruptedException {
+            lock.lock();
+            try {
+                while (closed) {
+                    opened.await();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean tryClose() {
+            lock.lock();
+            try {
+                if (closed) {
+                    return false;
+                }
+                closed = true;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void open() {
+            lock.lock();
+            try {
+                closed = false;
+                opened.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
 }
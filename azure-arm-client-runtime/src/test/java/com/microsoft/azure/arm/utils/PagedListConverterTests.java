@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.arm.utils;
+
+import com.microsoft.azure.Page;
+import com.microsoft.azure.PagedList;
+import com.microsoft.azure.arm.resources.collection.implementation.PageImpl;
+import org.junit.Assert;
+import org.junit.Test;
+import rx.Observable;
+import rx.functions.Action0;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PagedListConverterTests {
+    private static final int PAGE_SIZE = 10;
+    private static final int PAGES = 3;
+
+    @Test
+    public void asyncConversionsAreBoundedAndOrdered() {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        PagedList<String> converted = new PagedListConverter<Integer, String>() {
+            @Override
+            public Observable<String> typeConvertAsync(final Integer i) {
+                return Observable.just("item" + i)
+                        // the later items of a page are converted first
+                        .delay(PAGE_SIZE - i % PAGE_SIZE, TimeUnit.MILLISECONDS, Schedulers.io())
+                        .doOnSubscribe(new Action0() {
+                            @Override
+                            public void call() {
+                                int now = running.incrementAndGet();
+                                while (now > maxRunning.get()) {
+                                    maxRunning.compareAndSet(maxRunning.get(), now);
+                                }
+                            }
+                        })
+                        .doOnTerminate(new Action0() {
+                            @Override
+                            public void call() {
+                                running.decrementAndGet();
+                            }
+                        });
+            }
+
+            @Override
+            protected boolean filter(Integer i) {
+                return i % 5 != 0;
+            }
+        }.withMaxConcurrency(3).convert(pagedList());
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i != PAGES * PAGE_SIZE; i++) {
+            if (i % 5 != 0) {
+                expected.add("item" + i);
+            }
+        }
+        Assert.assertEquals(expected, new ArrayList<>(converted));
+        Assert.assertTrue(maxRunning.get() <= 3);
+    }
+
+    @Test
+    public void lazyConversionWaitsForThePageToBeReached() {
+        final AtomicInteger conversions = new AtomicInteger();
+        PagedListConverter<Integer, String> converter = new PagedListConverter<Integer, String>() {
+            @Override
+            public Observable<String> typeConvertAsync(Integer i) {
+                conversions.incrementAndGet();
+                return Observable.just("item" + i);
+            }
+        };
+
+        PagedList<String> converted = converter.convert(pagedList());
+        Assert.assertEquals("item0", converted.get(0));
+        // the page after the first one is fetched ahead
+        Assert.assertEquals(2 * PAGE_SIZE, conversions.get());
+
+        conversions.set(0);
+        converted = converter.withLazyConversion(true).convert(pagedList());
+        Assert.assertEquals("item0", converted.get(0));
+        Assert.assertEquals(PAGE_SIZE, conversions.get());
+        Assert.assertTrue(converted.hasNextPage());
+
+        Assert.assertEquals("item" + PAGE_SIZE, converted.get(PAGE_SIZE));
+        Assert.assertEquals(2 * PAGE_SIZE, conversions.get());
+        Assert.assertEquals(PAGES * PAGE_SIZE, converted.size());
+        Assert.assertEquals(PAGES * PAGE_SIZE, conversions.get());
+    }
+
+    private static PagedList<Integer> pagedList() {
+        return new PagedList<Integer>(page(0)) {
+            @Override
+            public Page<Integer> nextPage(String nextPageLink) {
+                return page(Integer.parseInt(nextPageLink));
+            }
+        };
+    }
+
+    private static Page<Integer> page(int pageNum) {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i != PAGE_SIZE; i++) {
+            items.add(pageNum * PAGE_SIZE + i);
+        }
+        return new PageImpl<Integer>()
+                .setItems(items)
+                .setNextPageLink(pageNum + 1 == PAGES ? null : Integer.toString(pageNum + 1));
+    }
+}
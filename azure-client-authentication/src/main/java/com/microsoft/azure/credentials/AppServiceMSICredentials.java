@@ -22,9 +22,9 @@ import java.net.URL;
  */
 @Beta
 public class AppServiceMSICredentials extends AzureTokenCredentials {
+    private static final AzureJacksonAdapter ADAPTER = new AzureJacksonAdapter();
     private final String endpoint;
     private final String secret;
-    private final AzureJacksonAdapter adapter;
 
     /**
      * Creates an MSI credential for app services.
@@ -50,7 +50,6 @@ public class AppServiceMSICredentials extends AzureTokenCredentials {
         }
         this.endpoint = endpoint;
         this.secret = secret;
-        this.adapter = new AzureJacksonAdapter();
     }
 
     @Override
@@ -72,7 +71,7 @@ public class AppServiceMSICredentials extends AzureTokenCredentials {
             BufferedReader reader = new BufferedReader(new InputStreamReader(stream, "UTF-8"), 100);
             String result = reader.readLine();
 
-            MSIToken msiToken = adapter.deserialize(result, MSIToken.class);
+            MSIToken msiToken = ADAPTER.deserialize(result, MSIToken.class);
             return msiToken.accessToken();
         } catch (Exception e) {
             e.printStackTrace();
@@ -27,10 +27,12 @@ import java.security.cert.X509Certificate;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,6 +42,8 @@ import java.util.regex.Pattern;
 public class ApplicationTokenCredentials extends AzureTokenCredentials {
     /** A mapping from resource endpoint to its cached access token. */
     private Map<String, AuthenticationResult> tokens;
+    /** The lock guarding token acquisitions, which does not pin virtual threads while waiting. */
+    private final Lock lock = new ReentrantLock();
     /** The active directory application client id. */
     private String clientId;
     /** The authentication secret for the application. */
@@ -62,7 +66,7 @@ public class ApplicationTokenCredentials extends AzureTokenCredentials {
         super(environment, domain); // defer token acquisition
         this.clientId = clientId;
         this.clientSecret = secret;
-        this.tokens = new HashMap<>();
+        this.tokens = new ConcurrentHashMap<>();
     }
 
     /**
@@ -80,7 +84,7 @@ public class ApplicationTokenCredentials extends AzureTokenCredentials {
         this.clientId = clientId;
         this.clientCertificate = certificate;
         this.clientCertificatePassword = password;
-        this.tokens = new HashMap<>();
+        this.tokens = new ConcurrentHashMap<>();
     }
 
     /**
@@ -133,13 +137,22 @@ public class ApplicationTokenCredentials extends AzureTokenCredentials {
     }
 
     @Override
-    public synchronized String getToken(String resource) throws IOException {
+    public String getToken(String resource) throws IOException {
         AuthenticationResult authenticationResult = tokens.get(resource);
-        if (authenticationResult == null || authenticationResult.getExpiresOnDate().before(new Date())) {
-            authenticationResult = acquireAccessToken(resource);
+        if (authenticationResult != null && !authenticationResult.getExpiresOnDate().before(new Date())) {
+            return authenticationResult.getAccessToken();
+        }
+        lock.lock();
+        try {
+            authenticationResult = tokens.get(resource);
+            if (authenticationResult == null || authenticationResult.getExpiresOnDate().before(new Date())) {
+                authenticationResult = acquireAccessToken(resource);
+                tokens.put(resource, authenticationResult);
+            }
+            return authenticationResult.getAccessToken();
+        } finally {
+            lock.unlock();
         }
-        tokens.put(resource, authenticationResult);
-        return authenticationResult.getAccessToken();
     }
 
     private AuthenticationResult acquireAccessToken(String resource) throws IOException {
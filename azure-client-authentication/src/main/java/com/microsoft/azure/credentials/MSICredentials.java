@@ -32,6 +32,7 @@ import java.util.concurrent.locks.ReentrantLock;
 @Beta
 public class MSICredentials extends AzureTokenCredentials {
     //
+    private static final AzureJacksonAdapter ADAPTER = new AzureJacksonAdapter();
     private final List<Integer> retrySlots = new ArrayList<>(Arrays.asList(new Integer[] {1, 1, 2, 3, 5, 8, 13, 21, 34, 55, 89, 144, 233, 377, 610, 987, 1597, 2584, 4181, 6765}));
     private int maxRetry = retrySlots.size();
     private final Lock lock = new ReentrantLock();
@@ -40,7 +41,6 @@ public class MSICredentials extends AzureTokenCredentials {
     private final String resource;
     private int msiPort = 50342;
     private final MSITokenSource tokenSource;
-    private final AzureJacksonAdapter adapter = new AzureJacksonAdapter();
     private String objectId;
     private String clientId;
     private String identityId;
@@ -165,7 +165,7 @@ public class MSICredentials extends AzureTokenCredentials {
             BufferedReader reader = new BufferedReader(new InputStreamReader(stream, "UTF-8"), 100);
             String result = reader.readLine();
 
-            MSIToken msiToken = adapter.deserialize(result, MSIToken.class);
+            MSIToken msiToken = ADAPTER.deserialize(result, MSIToken.class);
             return msiToken.accessToken();
         } catch (Exception e) {
             e.printStackTrace();
@@ -249,7 +249,7 @@ public class MSICredentials extends AzureTokenCredentials {
                 InputStream stream = connection.getInputStream();
                 BufferedReader reader = new BufferedReader(new InputStreamReader(stream, "UTF-8"), 100);
                 String result = reader.readLine();
-                return adapter.deserialize(result, MSIToken.class);
+                return ADAPTER.deserialize(result, MSIToken.class);
             } catch (Exception exception) {
                 int responseCode = connection.getResponseCode();
                 if (responseCode == 410 || responseCode == 429 || responseCode == 404 || (responseCode >= 500 && responseCode <= 599)) {
@@ -27,6 +27,8 @@ import java.util.Date;
  */
 @Beta
 final class RefreshTokenClient {
+    private static final JacksonAdapter ADAPTER = new JacksonAdapter();
+
     private final RefreshTokenService service;
 
     RefreshTokenClient(String baseUrl, Proxy proxy) {
@@ -36,7 +38,7 @@ final class RefreshTokenClient {
         }
         service = new Retrofit.Builder()
                 .addCallAdapterFactory(RxJavaCallAdapterFactory.create())
-                .addConverterFactory(new JacksonAdapter().converterFactory())
+                .addConverterFactory(ADAPTER.converterFactory())
                 .baseUrl(baseUrl)
                 .client(builder.build())
             .build().create(RefreshTokenService.class);
@@ -0,0 +1,246 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+import com.microsoft.azure.management.apigeneration.Beta.SinceVersion;
+import okhttp3.HttpUrl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A polling interval policy that honours the 'Retry-After' header, and otherwise
+ * backs off exponentially with jitter between a minimum and a maximum delay.
+ *
+ * When learning is enabled, the policy records how long the operations took to
+ * succeed for each HTTP method and URL template, for example
+ * 'PUT subscriptions/{}/resourcegroups/{}/providers/microsoft.compute/virtualmachines/{}',
+ * and issues the first poll of the next operations near the expected completion time.
+ *
+ * Configure the policy before setting it on a client; it can then be shared by
+ * any number of operations.
+ */
+@Beta(SinceVersion.V1_2_0)
+public final class AdaptivePollingIntervalPolicy implements PollingIntervalPolicy {
+    /** The number of completion times kept for each operation template. */
+    private static final int SAMPLE_WINDOW = 64;
+    /** The maximum number of operation templates learned. */
+    private static final int MAX_TEMPLATES = 1024;
+
+    private long minDelayInMilliseconds = 1000;
+    private long maxDelayInMilliseconds = 60000;
+    private double multiplier = 2;
+    private double jitter = 0.2;
+    private boolean learnCompletionTimes;
+    private double percentile = 0.5;
+    private int minSamples = 5;
+
+    private final ConcurrentMap<String, CompletionTimes> completionTimes = new ConcurrentHashMap<>();
+
+    /**
+     * Sets the delay of the first poll and the minimum delay between two polls.
+     *
+     * @param minDelayInMilliseconds the minimum delay, 1 second by default
+     * @return the policy itself
+     */
+    public AdaptivePollingIntervalPolicy withMinDelayInMilliseconds(long minDelayInMilliseconds) {
+        if (minDelayInMilliseconds < 0) {
+            throw new IllegalArgumentException("minDelayInMilliseconds < 0: " + minDelayInMilliseconds);
+        }
+        this.minDelayInMilliseconds = minDelayInMilliseconds;
+        return this;
+    }
+
+    /**
+     * Sets the maximum delay between two polls, unless the service asks for more with 'Retry-After'.
+     *
+     * @param maxDelayInMilliseconds the maximum delay, 60 seconds by default
+     * @return the policy itself
+     */
+    public AdaptivePollingIntervalPolicy withMaxDelayInMilliseconds(long maxDelayInMilliseconds) {
+        if (maxDelayInMilliseconds < 0) {
+            throw new IllegalArgumentException("maxDelayInMilliseconds < 0: " + maxDelayInMilliseconds);
+        }
+        this.maxDelayInMilliseconds = maxDelayInMilliseconds;
+        return this;
+    }
+
+    /**
+     * Sets the factor applied to the delay after each poll.
+     *
+     * @param multiplier the multiplier, 2 by default
+     * @return the policy itself
+     */
+    public AdaptivePollingIntervalPolicy withMultiplier(double multiplier) {
+        if (multiplier < 1) {
+            throw new IllegalArgumentException("multiplier < 1: " + multiplier);
+        }
+        this.multiplier = multiplier;
+        return this;
+    }
+
+    /**
+     * Sets the random variation of the delays, so that operations started together
+     * do not keep polling together.
+     *
+     * @param jitter the variation as a fraction of the delay, 0.2 by default
+     * @return the policy itself
+     */
+    public AdaptivePollingIntervalPolicy withJitter(double jitter) {
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("jitter not in [0, 1]: " + jitter);
+        }
+        this.jitter = jitter;
+        return this;
+    }
+
+    /**
+     * Enables learning the completion times of the operations.
+     *
+     * @param percentile the percentile of the learned completion times at which
+     *                   the first poll is issued, between 0 and 1
+     * @param minSamples the number of completed operations of the same template
+     *                   needed before the learned completion time is used
+     * @return the policy itself
+     */
+    public AdaptivePollingIntervalPolicy withLearnedCompletionTimes(double percentile, int minSamples) {
+        if (percentile <= 0 || percentile > 1) {
+            throw new IllegalArgumentException("percentile not in (0, 1]: " + percentile);
+        }
+        if (minSamples <= 0 || minSamples > SAMPLE_WINDOW) {
+            throw new IllegalArgumentException("minSamples not in [1, " + SAMPLE_WINDOW + "]: " + minSamples);
+        }
+        this.learnCompletionTimes = true;
+        this.percentile = percentile;
+        this.minSamples = minSamples;
+        return this;
+    }
+
+    @Override
+    public long delayInMilliseconds(PollingState<?> pollingState, int pollCount, long elapsedMillis) {
+        int retryAfter = pollingState.retryAfterInMilliseconds();
+        if (retryAfter >= 0) {
+            return retryAfter;
+        }
+        long expected = expectedCompletionInMilliseconds(pollingState);
+        if (expected < 0) {
+            return backOff(pollCount);
+        }
+        if (pollCount == 0) {
+            return Math.min(expected - elapsedMillis, maxDelayInMilliseconds);
+        }
+        // the operation takes longer than expected, back off from the minimum delay again
+        return backOff(pollCount - 1);
+    }
+
+    @Override
+    public void onTerminal(PollingState<?> pollingState, long elapsedMillis) {
+        if (!learnCompletionTimes || !pollingState.isStatusSucceeded()) {
+            return;
+        }
+        String template = template(pollingState);
+        if (template == null) {
+            return;
+        }
+        CompletionTimes times = completionTimes.get(template);
+        if (times == null) {
+            if (completionTimes.size() >= MAX_TEMPLATES) {
+                return;
+            }
+            CompletionTimes created = new CompletionTimes();
+            times = completionTimes.putIfAbsent(template, created);
+            if (times == null) {
+                times = created;
+            }
+        }
+        times.add(elapsedMillis);
+    }
+
+    /**
+     * @return the expected completion time of the operation in milliseconds, or -1 if not known yet
+     */
+    long expectedCompletionInMilliseconds(PollingState<?> pollingState) {
+        if (!learnCompletionTimes) {
+            return -1;
+        }
+        String template = template(pollingState);
+        CompletionTimes times = template == null ? null : completionTimes.get(template);
+        return times == null ? -1 : times.percentile(percentile, minSamples);
+    }
+
+    private long backOff(int exponent) {
+        double delay = Math.min(minDelayInMilliseconds * Math.pow(multiplier, exponent), maxDelayInMilliseconds);
+        if (jitter > 0) {
+            delay *= 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        }
+        return Math.max(minDelayInMilliseconds, Math.min((long) delay, maxDelayInMilliseconds));
+    }
+
+    /**
+     * Gets the template of the operation, the HTTP method followed by the path of the initial
+     * request where the resource group and resource names are replaced by '{}'.
+     *
+     * @return the template, or null if the initial request is not known
+     */
+    static String template(PollingState<?> pollingState) {
+        String method = pollingState.initialHttpMethod();
+        String url = pollingState.initialUrl();
+        HttpUrl httpUrl = url == null ? null : HttpUrl.parse(url);
+        if (method == null || httpUrl == null) {
+            return null;
+        }
+        StringBuilder template = new StringBuilder(method.toUpperCase(Locale.ROOT)).append(' ');
+        List<String> segments = httpUrl.pathSegments();
+        boolean name = false;
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            if (i > 0) {
+                template.append('/');
+            }
+            if (name) {
+                template.append("{}");
+                name = false;
+            } else if (segment.equalsIgnoreCase("providers") && i + 1 < segments.size()) {
+                // the resource provider namespace is not followed by a name
+                template.append("providers/").append(segments.get(++i).toLowerCase(Locale.ROOT));
+            } else {
+                template.append(segment.toLowerCase(Locale.ROOT));
+                name = true;
+            }
+        }
+        return template.toString();
+    }
+
+    /**
+     * The last completion times of the operations of a template.
+     */
+    private static final class CompletionTimes {
+        private final long[] samples = new long[SAMPLE_WINDOW];
+        private int count;
+        private int next;
+
+        synchronized void add(long elapsedMillis) {
+            samples[next] = elapsedMillis;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        synchronized long percentile(double percentile, int minSamples) {
+            if (count < minSamples) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[Math.max(0, (int) Math.ceil(percentile * count) - 1)];
+        }
+    }
+}
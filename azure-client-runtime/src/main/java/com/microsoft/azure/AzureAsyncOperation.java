@@ -11,6 +11,7 @@ import okhttp3.ResponseBody;
 import retrofit2.Response;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 
@@ -112,15 +113,15 @@ final class AzureAsyncOperation {
     }
 
     /**
-     * Async operation in string format.
+     * The response body the async operation was read from.
      */
-    private String rawString;
+    private PollingResponseBody body;
 
     /**
-     * @return the raw string
+     * @return the response body the async operation was read from
      */
-    String rawString() {
-        return this.rawString;
+    PollingResponseBody body() {
+        return this.body;
     }
 
     /**
@@ -132,23 +133,26 @@ final class AzureAsyncOperation {
      * @throws CloudException if the deserialization fails or response contains invalid body
      */
     static AzureAsyncOperation fromResponse(SerializerAdapter<?> serializerAdapter, Response<ResponseBody> response) throws CloudException {
+        byte[] bytes = null;
+        PollingResponseBody body = null;
         AzureAsyncOperation asyncOperation = null;
-        String rawString = null;
-        if (response.body() != null) {
-            try {
-                rawString = response.body().string();
-                asyncOperation = serializerAdapter.deserialize(rawString, AzureAsyncOperation.class);
-            } catch (IOException exception) {
-                // Exception will be handled below
-            } finally {
-                response.body().close();
+        try {
+            bytes = PollingResponseBody.bytes(response);
+            body = PollingResponseBody.parse(serializerAdapter, bytes);
+            if (body != null && body.status() != null) {
+                asyncOperation = new AzureAsyncOperation();
+                asyncOperation.status = body.status();
+                asyncOperation.error = body.error();
+                asyncOperation.body = body;
             }
+        } catch (IOException exception) {
+            // Exception will be handled below
+            asyncOperation = null;
         }
-        if (asyncOperation == null || asyncOperation.status() == null) {
-            throw new CloudException("polling response does not contain a valid body: " + rawString, response);
-        }
-        else {
-            asyncOperation.rawString = rawString;
+        if (asyncOperation == null) {
+            // keep the raw content when the body could not be parsed
+            Object content = body != null || bytes == null ? body : new String(bytes, StandardCharsets.UTF_8);
+            throw new CloudException("polling response does not contain a valid body: " + content, response);
         }
         return asyncOperation;
     }
@@ -16,15 +16,16 @@ import retrofit2.http.Url;
 import rx.Observable;
 import rx.Single;
 import rx.exceptions.Exceptions;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func0;
 import rx.functions.Func1;
-import rx.schedulers.Schedulers;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Arrays;
-import java.util.concurrent.TimeUnit;
 
 /**
  * An instance of this class defines a ServiceClient that handles polling and
@@ -41,6 +42,26 @@ public final class AzureClient extends AzureServiceClient {
      */
     private final String serviceClientUserAgent;
 
+    /**
+     * The Retrofit service used for polling.
+     */
+    private final AsyncService asyncService;
+
+    /**
+     * The poller driving the long running operations.
+     */
+    private LongRunningOperationPoller longRunningOperationPoller = LongRunningOperationPoller.shared();
+
+    /**
+     * The policy deciding the delays between the polls.
+     */
+    private PollingIntervalPolicy pollingIntervalPolicy = PollingIntervalPolicy.DEFAULT;
+
+    /**
+     * The store the polling states are saved to, null if they are not saved.
+     */
+    private LongRunningOperationCheckpointStore checkpointStore;
+
     /**
      * Initializes an instance of this class with customized client metadata.
      *
@@ -49,6 +70,70 @@ public final class AzureClient extends AzureServiceClient {
     public AzureClient(AzureServiceClient serviceClient) {
         super(serviceClient.restClient());
         this.serviceClientUserAgent = serviceClient.userAgent();
+        this.asyncService = restClient().retrofit().create(AsyncService.class);
+    }
+
+    /**
+     * Gets the poller driving the long running operations of this client.
+     *
+     * @return the poller, shared by all clients unless set
+     */
+    public LongRunningOperationPoller longRunningOperationPoller() {
+        return longRunningOperationPoller;
+    }
+
+    /**
+     * Sets the poller driving the long running operations of this client, for example
+     * to bound the polls in flight separately from the other clients.
+     *
+     * @param longRunningOperationPoller the poller
+     */
+    public void setLongRunningOperationPoller(LongRunningOperationPoller longRunningOperationPoller) {
+        if (longRunningOperationPoller == null) {
+            throw new IllegalArgumentException("longRunningOperationPoller == null");
+        }
+        this.longRunningOperationPoller = longRunningOperationPoller;
+    }
+
+    /**
+     * Gets the policy deciding the delays between the polls of the long running operations.
+     *
+     * @return the policy, {@link PollingIntervalPolicy#DEFAULT} unless set
+     */
+    public PollingIntervalPolicy pollingIntervalPolicy() {
+        return pollingIntervalPolicy;
+    }
+
+    /**
+     * Sets the policy deciding the delays between the polls of the long running operations.
+     *
+     * @param pollingIntervalPolicy the policy, for example an {@link AdaptivePollingIntervalPolicy}
+     */
+    public void setPollingIntervalPolicy(PollingIntervalPolicy pollingIntervalPolicy) {
+        if (pollingIntervalPolicy == null) {
+            throw new IllegalArgumentException("pollingIntervalPolicy == null");
+        }
+        this.pollingIntervalPolicy = pollingIntervalPolicy;
+    }
+
+    /**
+     * Gets the store the polling states of the long running operations are saved to.
+     *
+     * @return the store, null unless set
+     */
+    public LongRunningOperationCheckpointStore checkpointStore() {
+        return checkpointStore;
+    }
+
+    /**
+     * Sets the store the polling states of the long running operations are saved to after
+     * each poll, and removed from when the operations finish. The operations left in the
+     * store can be resumed with {@link #pollAsync(PollingState, Type)}.
+     *
+     * @param checkpointStore the store, or null to not save the polling states
+     */
+    public void setCheckpointStore(LongRunningOperationCheckpointStore checkpointStore) {
+        this.checkpointStore = checkpointStore;
     }
 
     /**
@@ -123,7 +208,21 @@ public final class AzureClient extends AzureServiceClient {
      * @return          the observable of which a subscription will lead to a final response.
      */
     public <T> Observable<ServiceResponse<T>> getPutOrPatchResultAsync(Observable<Response<ResponseBody>> observable, final Type resourceType) {
-        return this.<T>beginPutOrPatchAsync(observable, resourceType)
+        return this.<T>getPutOrPatchResultAsync(observable, LongRunningOperationOptions.DEFAULT, resourceType);
+    }
+
+    /**
+     * Handles an initial response from a PUT or PATCH operation response by polling the status of the operation
+     * asynchronously, once the operation finishes emits the final response.
+     *
+     * @param observable the initial observable from the PUT or PATCH operation.
+     * @param lroOptions long running operation options.
+     * @param resourceType the java.lang.reflect.Type of the resource.
+     * @param <T>       the return type of the caller.
+     * @return          the observable of which a subscription will lead to a final response.
+     */
+    public <T> Observable<ServiceResponse<T>> getPutOrPatchResultAsync(Observable<Response<ResponseBody>> observable, final LongRunningOperationOptions lroOptions, final Type resourceType) {
+        return this.<T>beginPutOrPatchAsync(observable, lroOptions, resourceType)
                 .toObservable()
                 .flatMap(new Func1<PollingState<T>, Observable<PollingState<T>>>() {
                     @Override
@@ -154,6 +253,21 @@ public final class AzureClient extends AzureServiceClient {
      * @return the observable of which a subscription will lead PUT or PATCH action.
      */
     public <T> Single<PollingState<T>> beginPutOrPatchAsync(Observable<Response<ResponseBody>> observable, final Type resourceType) {
+        return this.<T>beginPutOrPatchAsync(observable, LongRunningOperationOptions.DEFAULT, resourceType);
+    }
+
+    /**
+     * Given an observable representing a deferred PUT or PATCH action, this method returns {@link Single} object,
+     * when subscribed to it, the deferred action will be performed and emits the polling state containing information
+     * to track the progress of the action.
+     *
+     * @param observable an observable representing a deferred PUT or PATCH operation.
+     * @param lroOptions long running operation options.
+     * @param resourceType the java.lang.reflect.Type of the resource.
+     * @param <T> the type of the resource
+     * @return the observable of which a subscription will lead PUT or PATCH action.
+     */
+    public <T> Single<PollingState<T>> beginPutOrPatchAsync(Observable<Response<ResponseBody>> observable, final LongRunningOperationOptions lroOptions, final Type resourceType) {
         return observable.map(new Func1<Response<ResponseBody>, PollingState<T>>() {
             @Override
             public PollingState<T> call(Response<ResponseBody> response) {
@@ -162,7 +276,7 @@ public final class AzureClient extends AzureServiceClient {
                     throw  exception;
                 }
                 try {
-                    final PollingState<T> pollingState = PollingState.create(response, LongRunningOperationOptions.DEFAULT, longRunningOperationRetryTimeout(), resourceType, restClient().serializerAdapter());
+                    final PollingState<T> pollingState = PollingState.create(response, lroOptions, longRunningOperationRetryTimeout(), resourceType, restClient().serializerAdapter());
                     pollingState.withPollingUrlFromResponse(response);
                     pollingState.withPollingRetryTimeoutFromResponse(response);
                     pollingState.withPutOrPatchResourceUri(response.raw().request().url().toString());
@@ -210,6 +324,9 @@ public final class AzureClient extends AzureServiceClient {
                         if (pollingState.isStatusSucceeded() && pollingState.resource() == null) {
                             return updateStateFromGetResourceOperationAsync(pollingState, pollingState.putOrPatchResourceUri());
                         }
+                        if (pollingState.finalGetSkipped()) {
+                            longRunningOperationPoller.recordSkippedFinalGet();
+                        }
                         return Observable.just(tPollingState);
                     }
                 })
@@ -221,7 +338,8 @@ public final class AzureClient extends AzureServiceClient {
      * when subscribed to it, a series of polling will be performed and emits each polling state to downstream.
      * Polling will completes when the operation finish with success, failure or exception.
      *
-     * Note: this method implicitly runs the polling on rx IO scheduler.
+     * Note: a first poll due right away runs on the subscribing thread, the next ones are issued
+     * by the {@link LongRunningOperationPoller} on the rx IO scheduler.
      *
      * @param pollingState the current polling state
      * @param <T> the type of the resource
@@ -231,31 +349,58 @@ public final class AzureClient extends AzureServiceClient {
     private <T> Observable<PollingState<T>> pollPutOrPatchAsync(final PollingState<T> pollingState, final Type resourceType) {
         pollingState.withResourceType(resourceType);
         pollingState.withSerializerAdapter(restClient().serializerAdapter());
-        return Observable.just(true)
-                .flatMap(new Func1<Boolean, Observable<PollingState<T>>>() {
+        return checkpointed(pollingState, longRunningOperationPoller.poll(pollingState, pollingIntervalPolicy, new Func0<Single<PollingState<T>>>() {
+            @Override
+            public Single<PollingState<T>> call() {
+                return pollPutOrPatchSingleAsync(pollingState, resourceType);
+            }
+        }));
+    }
+
+    /**
+     * Saves the polling state to the checkpoint store, if any, when the polling starts and
+     * after each poll, and removes it once the operation reached a terminal state.
+     *
+     * @param pollingState the polling state
+     * @param polls the polls of the operation
+     * @param <T> the type of the resource
+     * @return the polls saving the polling state
+     */
+    private <T> Observable<PollingState<T>> checkpointed(final PollingState<T> pollingState, Observable<PollingState<T>> polls) {
+        final LongRunningOperationCheckpointStore store = this.checkpointStore;
+        if (store == null) {
+            return polls;
+        }
+        return polls
+                .doOnSubscribe(new Action0() {
                     @Override
-                    public Observable<PollingState<T>> call(Boolean aBoolean) {
-                        return pollPutOrPatchSingleAsync(pollingState, resourceType).toObservable();
+                    public void call() {
+                        checkpoint(store, pollingState);
                     }
-                }).repeatWhen(new Func1<Observable<? extends Void>, Observable<?>>() {
+                })
+                .doOnNext(new Action1<PollingState<T>>() {
                     @Override
-                    public Observable<?> call(Observable<? extends Void> observable) {
-                        return observable.flatMap(new Func1<Void, Observable<Long>>() {
-                            @Override
-                            public Observable<Long> call(Void aVoid) {
-                                return Observable.timer(pollingState.delayInMilliseconds(),
-                                        TimeUnit.MILLISECONDS, Schedulers.immediate());
-                            }
-                        });
+                    public void call(PollingState<T> state) {
+                        checkpoint(store, state);
                     }
-                }).takeUntil(new Func1<PollingState<T>, Boolean>() {
+                })
+                .doOnError(new Action1<Throwable>() {
                     @Override
-                    public Boolean call(PollingState<T> tPollingState) {
-                        return pollingState.isStatusTerminal();
+                    public void call(Throwable throwable) {
+                        // keep the operation to resume unless it failed
+                        checkpoint(store, pollingState);
                     }
                 });
     }
 
+    private static void checkpoint(LongRunningOperationCheckpointStore store, PollingState<?> pollingState) {
+        if (pollingState.isStatusTerminal()) {
+            store.remove(pollingState);
+        } else {
+            store.save(pollingState);
+        }
+    }
+
     /**
      * Handles an initial response from a PUT or PATCH operation response by polling
      * the status of the operation asynchronously, calling the user provided callback
@@ -433,6 +578,9 @@ public final class AzureClient extends AzureServiceClient {
                         if (pollingState.resourcePending()) {
                             return updateStateFromLocationHeaderOnPostOrDeleteAsync(pollingState);
                         }
+                        if (pollingState.finalGetSkipped()) {
+                            longRunningOperationPoller.recordSkippedFinalGet();
+                        }
                         return Observable.just(pollingState);
                     }
                 })
@@ -444,6 +592,9 @@ public final class AzureClient extends AzureServiceClient {
      * when subscribed to it, a series of polling will be performed and emits each polling state to downstream.
      * Polling will completes when the operation finish with success, failure or exception.
      *
+     * Note: a first poll due right away runs on the subscribing thread, the next ones are issued
+     * by the {@link LongRunningOperationPoller} on the rx IO scheduler.
+     *
      * @param pollingState the current polling state
      * @param resourceType the java.lang.reflect.Type of the resource.
      * @param <T> the type of the resource
@@ -452,29 +603,12 @@ public final class AzureClient extends AzureServiceClient {
     private <T> Observable<PollingState<T>> pollPostOrDeleteAsync(final PollingState<T> pollingState, final Type resourceType) {
         pollingState.withResourceType(resourceType);
         pollingState.withSerializerAdapter(restClient().serializerAdapter());
-        return Observable.just(true)
-                .flatMap(new Func1<Boolean, Observable<PollingState<T>>>() {
-                    @Override
-                    public Observable<PollingState<T>> call(Boolean aBoolean) {
-                        return pollPostOrDeleteSingleAsync(pollingState, resourceType).toObservable();
-                    }
-                }).repeatWhen(new Func1<Observable<? extends Void>, Observable<?>>() {
-                    @Override
-                    public Observable<?> call(Observable<? extends Void> observable) {
-                        return observable.flatMap(new Func1<Void, Observable<Long>>() {
-                            @Override
-                            public Observable<Long> call(Void aVoid) {
-                                return Observable.timer(pollingState.delayInMilliseconds(),
-                                        TimeUnit.MILLISECONDS, Schedulers.immediate());
-                            }
-                        });
-                    }
-                }).takeUntil(new Func1<PollingState<T>, Boolean>() {
-                    @Override
-                    public Boolean call(PollingState<T> tPollingState) {
-                        return pollingState.isStatusTerminal();
-                    }
-                });
+        return checkpointed(pollingState, longRunningOperationPoller.poll(pollingState, pollingIntervalPolicy, new Func0<Single<PollingState<T>>>() {
+            @Override
+            public Single<PollingState<T>> call() {
+                return pollPostOrDeleteSingleAsync(pollingState, resourceType);
+            }
+        }));
     }
 
     /**
@@ -654,7 +788,7 @@ public final class AzureClient extends AzureServiceClient {
                         pollingState.withStatus(asyncOperation.status());
                         pollingState.withErrorBody(asyncOperation.getError());
                         pollingState.withResponse(response);
-                        pollingState.withResource(null);
+                        pollingState.withResourceFromOperationStatus(asyncOperation.body());
                         return Observable.just(pollingState);
                     }
                 });
@@ -682,10 +816,10 @@ public final class AzureClient extends AzureServiceClient {
                         pollingState.withErrorBody(asyncOperation.getError());
                         pollingState.withResponse(response);
                         try {
-                            T resource = restClient().serializerAdapter().deserialize(asyncOperation.rawString(), pollingState.resourceType());
-                            pollingState.withResource(resource);
+                            pollingState.withResourceFrom(asyncOperation.body());
                         } catch (IOException e) {
                             // Ignore and let resource be null
+                            pollingState.withResource(null);
                         }
                         return Observable.just(pollingState);
                     }
@@ -705,11 +839,10 @@ public final class AzureClient extends AzureServiceClient {
         } catch (MalformedURLException e) {
             return Observable.error(e);
         }
-        AsyncService service = restClient().retrofit().create(AsyncService.class);
         if (loggingContext != null && !loggingContext.endsWith(" (poll)")) {
             loggingContext += " (poll)";
         }
-        return service.get(endpoint.getFile(), serviceClientUserAgent, loggingContext)
+        return asyncService.get(endpoint.getFile(), serviceClientUserAgent, loggingContext)
                 .flatMap(new Func1<Response<ResponseBody>, Observable<Response<ResponseBody>>>() {
                     @Override
                     public Observable<Response<ResponseBody>> call(Response<ResponseBody> response) {
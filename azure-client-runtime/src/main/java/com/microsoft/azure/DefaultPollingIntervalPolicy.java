@@ -0,0 +1,21 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure;
+
+/**
+ * The polling interval policy used unless another one is set, see {@link PollingIntervalPolicy#DEFAULT}.
+ */
+final class DefaultPollingIntervalPolicy implements PollingIntervalPolicy {
+    @Override
+    public long delayInMilliseconds(PollingState<?> pollingState, int pollCount, long elapsedMillis) {
+        return pollCount == 0 ? 0 : pollingState.delayInMilliseconds();
+    }
+
+    @Override
+    public void onTerminal(PollingState<?> pollingState, long elapsedMillis) {
+    }
+}
@@ -0,0 +1,284 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+import com.microsoft.azure.management.apigeneration.Beta.SinceVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A checkpoint store backed by an append-only journal file. Each line of the journal
+ * either saves the serialized polling state of an operation or removes it.
+ *
+ * Saves and removes only update memory; they are written to the journal in batches by a
+ * background thread, with one fsync per batch, and several saves of the same operation in
+ * a batch are written once. When the journal holds mostly outdated records it is compacted
+ * by writing the live states to a new file that replaces it.
+ */
+@Beta(SinceVersion.V1_2_0)
+public final class FileCheckpointStore implements LongRunningOperationCheckpointStore, Closeable {
+    /** The default delay between two batches. */
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+    /** The number of records below which the journal is never compacted. */
+    private static final int MIN_COMPACTION_RECORDS = 1024;
+    private static final String SAVE = "S ";
+    private static final String REMOVE = "R ";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileCheckpointStore.class);
+
+    private final Path journal;
+    private final Object journalLock = new Object();
+    private final ScheduledExecutorService flusher;
+
+    /** The serialized states of the unfinished operations by id, guarded by itself. */
+    private final Map<String, String> live = new LinkedHashMap<>();
+    /** The records not written yet by id, null for a removal, guarded by live. */
+    private Map<String, String> pending = new LinkedHashMap<>();
+
+    /** The journal channel, guarded by the journal lock. */
+    private FileChannel channel;
+    /** The number of records in the journal, guarded by the journal lock. */
+    private int journalRecords;
+    /** Whether the last write failed and may have left a partial record, guarded by the journal lock. */
+    private boolean torn;
+
+    /**
+     * Opens a store, writing batches every 200 milliseconds.
+     *
+     * @param file the journal file, created if it does not exist
+     * @throws IOException if the journal cannot be read or written
+     */
+    public FileCheckpointStore(File file) throws IOException {
+        this(file, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Opens a store.
+     *
+     * @param file the journal file, created if it does not exist
+     * @param flushIntervalMillis the delay between two batches in milliseconds
+     * @throws IOException if the journal cannot be read or written
+     */
+    public FileCheckpointStore(File file, long flushIntervalMillis) throws IOException {
+        if (flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("flushIntervalMillis <= 0: " + flushIntervalMillis);
+        }
+        this.journal = file.toPath();
+        synchronized (journalLock) {
+            if (Files.exists(journal)) {
+                replay();
+            }
+            // also drops a record torn by a crash, so that the next records start on a new line
+            compact();
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "azure-lro-checkpoint");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.flusher.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    flush();
+                } catch (IOException e) {
+                    LOGGER.warn("Failed to write the long running operation checkpoints to " + journal, e);
+                }
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void save(PollingState<?> pollingState) {
+        String id = pollingState.operationId();
+        String serialized = pollingState.serialize();
+        synchronized (live) {
+            live.put(id, serialized);
+            pending.put(id, serialized);
+        }
+    }
+
+    @Override
+    public void remove(PollingState<?> pollingState) {
+        String id = pollingState.operationId();
+        synchronized (live) {
+            if (live.remove(id) != null) {
+                pending.put(id, null);
+            }
+        }
+    }
+
+    @Override
+    public List<PollingState<?>> load() {
+        List<String> serialized;
+        synchronized (live) {
+            serialized = new ArrayList<>(live.values());
+        }
+        List<PollingState<?>> pollingStates = new ArrayList<>(serialized.size());
+        for (String value : serialized) {
+            pollingStates.add(PollingState.createFromJSONString(value));
+        }
+        return pollingStates;
+    }
+
+    /**
+     * Writes the pending saves and removes to the journal and syncs it to the disk.
+     *
+     * @throws IOException if the journal cannot be written; the records are kept for the next attempt
+     */
+    public void flush() throws IOException {
+        synchronized (journalLock) {
+            Map<String, String> batch;
+            synchronized (live) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new LinkedHashMap<>();
+            }
+            try {
+                if (torn) {
+                    // the live states include the batch
+                    compact();
+                    torn = false;
+                    return;
+                }
+                StringBuilder records = new StringBuilder();
+                for (Map.Entry<String, String> entry : batch.entrySet()) {
+                    appendRecord(records, entry.getKey(), entry.getValue());
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(records.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                torn = true;
+                synchronized (live) {
+                    for (Map.Entry<String, String> entry : batch.entrySet()) {
+                        if (!pending.containsKey(entry.getKey())) {
+                            pending.put(entry.getKey(), entry.getValue());
+                        }
+                    }
+                }
+                throw e;
+            }
+            journalRecords += batch.size();
+            int liveCount;
+            synchronized (live) {
+                liveCount = live.size();
+            }
+            if (journalRecords >= MIN_COMPACTION_RECORDS && journalRecords > 2 * liveCount) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Writes the pending records and closes the journal.
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        flusher.shutdown();
+        synchronized (journalLock) {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private void replay() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf(' ', REMOVE.length());
+                if (line.startsWith(REMOVE)) {
+                    live.remove(line.substring(REMOVE.length()));
+                } else if (line.startsWith(SAVE) && separator > 0) {
+                    String serialized = line.substring(separator + 1);
+                    try {
+                        PollingState.createFromJSONString(serialized);
+                    } catch (RuntimeException e) {
+                        // a record torn by a crash
+                        continue;
+                    }
+                    live.put(line.substring(SAVE.length(), separator), serialized);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the journal with one holding only the live states. The caller holds the journal lock.
+     */
+    private void compact() throws IOException {
+        StringBuilder records = new StringBuilder();
+        int count = 0;
+        synchronized (live) {
+            for (Map.Entry<String, String> entry : live.entrySet()) {
+                appendRecord(records, entry.getKey(), entry.getValue());
+                count++;
+            }
+        }
+        Path compacted = journal.resolveSibling(journal.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(records.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(false);
+        }
+        if (channel != null) {
+            channel.close();
+        }
+        try {
+            Files.move(compacted, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(compacted, journal, StandardCopyOption.REPLACE_EXISTING);
+        }
+        channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        journalRecords = count;
+    }
+
+    private static void appendRecord(StringBuilder records, String id, String serialized) {
+        if (serialized == null) {
+            records.append(REMOVE).append(id).append('\n');
+        } else {
+            records.append(SAVE).append(id).append(' ').append(serialized).append('\n');
+        }
+    }
+}
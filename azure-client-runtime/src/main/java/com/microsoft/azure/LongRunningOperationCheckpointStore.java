@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+import com.microsoft.azure.management.apigeneration.Beta.SinceVersion;
+
+import java.util.List;
+
+/**
+ * Keeps the polling states of the unfinished long running operations, so that they can be
+ * resumed with {@link AzureClient#pollAsync(PollingState, java.lang.reflect.Type)} after a
+ * restart without sending the initial request again. The states are keyed by
+ * {@link PollingState#operationId()}.
+ *
+ * The methods are called from the polling threads and must not block on I/O.
+ */
+@Beta(SinceVersion.V1_2_0)
+public interface LongRunningOperationCheckpointStore {
+    /**
+     * Saves the polling state of an unfinished operation, replacing the previous one.
+     *
+     * @param pollingState the polling state
+     */
+    void save(PollingState<?> pollingState);
+
+    /**
+     * Removes the polling state of a finished operation.
+     *
+     * @param pollingState the polling state
+     */
+    void remove(PollingState<?> pollingState);
+
+    /**
+     * Loads the polling states of the unfinished operations.
+     *
+     * @return the polling states
+     */
+    List<PollingState<?>> load();
+}
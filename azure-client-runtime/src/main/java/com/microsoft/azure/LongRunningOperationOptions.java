@@ -20,6 +20,11 @@ public final class LongRunningOperationOptions {
      */
     private LongRunningFinalState finalStateVia;
 
+    /**
+     * Whether the last polling response is trusted as the final state when it is a complete resource.
+     */
+    private boolean trustLastResponse;
+
     /**
      * @return indicates how to retrieve the final state of LRO.
      */
@@ -37,4 +42,26 @@ public final class LongRunningOperationOptions {
         this.finalStateVia = finalStateVia;
         return this;
     }
+
+    /**
+     * @return true if the last polling response is trusted as the final state when it is a complete resource.
+     */
+    public boolean trustLastResponse() {
+        return this.trustLastResponse;
+    }
+
+    /**
+     * Sets whether the last polling response is trusted as the final state of the LRO. When set,
+     * the final GET of a succeeded operation is skipped if the last polling response was fetched
+     * from the URL that GET would read, the resource of a PUT or PATCH or the location of a POST
+     * or DELETE, has the id of that URL, is not an operation status (a top level 'status' without
+     * 'properties') and binds to the resource type.
+     *
+     * @param trustLastResponse true to skip the final GET when the last response is a complete resource.
+     * @return LongRunningOperationOptions
+     */
+    public LongRunningOperationOptions withTrustLastResponse(boolean trustLastResponse) {
+        this.trustLastResponse = trustLastResponse;
+        return this;
+    }
 }
@@ -0,0 +1,520 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+import com.microsoft.azure.management.apigeneration.Beta.SinceVersion;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Single;
+import rx.SingleSubscriber;
+import rx.Subscriber;
+import rx.functions.Action0;
+import rx.functions.Func0;
+import rx.schedulers.Schedulers;
+import rx.subscriptions.SerialSubscription;
+import rx.subscriptions.Subscriptions;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives the polling of long running operations. Instead of one timer per operation,
+ * the operations waiting for their next poll are kept in a hashed timer wheel ticked
+ * by a single daemon thread, and at most a bounded number of polls are in flight at
+ * any time. Due polls beyond that bound wait for a poll in flight to complete. The
+ * wheel is only ticked while operations wait in it.
+ */
+@Beta(SinceVersion.V1_2_0)
+public final class LongRunningOperationPoller implements Closeable {
+    /** The default duration of a tick of the wheel. */
+    private static final long DEFAULT_TICK_MILLIS = 100;
+    /** The default number of buckets in the wheel. */
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+    /** The default maximum number of polls in flight. */
+    private static final int DEFAULT_MAX_CONCURRENT_POLLS = 64;
+
+    private final long tickMillis;
+    private final List<Set<Operation<?>>> wheel;
+    private final int maxConcurrentPolls;
+    private final Scheduler scheduler;
+    private final ScheduledExecutorService timer;
+    private final Queue<Operation<?>> ready = new ConcurrentLinkedQueue<>();
+    private final boolean closeable;
+
+    /** The current tick, guarded by the wheel. */
+    private long tick;
+    /** The number of operations in the wheel, guarded by the wheel. */
+    private int waitingCount;
+    /** The ticking of the wheel, null while the wheel is empty, guarded by the wheel. */
+    private ScheduledFuture<?> ticking;
+    /** Whether the poller was closed, set under the wheel lock. */
+    private volatile boolean closed;
+
+    private final AtomicInteger operationCount = new AtomicInteger();
+    private final AtomicInteger pollsInFlight = new AtomicInteger();
+    private final AtomicLong pollCount = new AtomicLong();
+    private final AtomicLong pollLatencyNanos = new AtomicLong();
+    private final AtomicLong skippedFinalGetCount = new AtomicLong();
+
+    /**
+     * Lazily creates the shared instance on first use.
+     */
+    private static final class SharedHolder {
+        private static final LongRunningOperationPoller INSTANCE =
+                new LongRunningOperationPoller(DEFAULT_MAX_CONCURRENT_POLLS, DEFAULT_TICK_MILLIS, Schedulers.io(), false);
+    }
+
+    /**
+     * Creates a poller with at most 64 polls in flight.
+     */
+    public LongRunningOperationPoller() {
+        this(DEFAULT_MAX_CONCURRENT_POLLS);
+    }
+
+    /**
+     * Creates a poller.
+     *
+     * @param maxConcurrentPolls the maximum number of polls in flight
+     */
+    public LongRunningOperationPoller(int maxConcurrentPolls) {
+        this(maxConcurrentPolls, DEFAULT_TICK_MILLIS, Schedulers.io());
+    }
+
+    /**
+     * Creates a poller.
+     *
+     * @param maxConcurrentPolls the maximum number of polls in flight
+     * @param tickMillis the resolution of the poll delays in milliseconds
+     * @param scheduler the scheduler the polls are issued on
+     */
+    public LongRunningOperationPoller(int maxConcurrentPolls, long tickMillis, Scheduler scheduler) {
+        this(maxConcurrentPolls, tickMillis, scheduler, true);
+    }
+
+    private LongRunningOperationPoller(int maxConcurrentPolls, long tickMillis, Scheduler scheduler, boolean closeable) {
+        if (maxConcurrentPolls <= 0) {
+            throw new IllegalArgumentException("maxConcurrentPolls <= 0: " + maxConcurrentPolls);
+        }
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis <= 0: " + tickMillis);
+        }
+        this.maxConcurrentPolls = maxConcurrentPolls;
+        this.tickMillis = tickMillis;
+        this.scheduler = scheduler;
+        this.closeable = closeable;
+        this.wheel = new ArrayList<>(DEFAULT_WHEEL_SIZE);
+        for (int i = 0; i < DEFAULT_WHEEL_SIZE; i++) {
+            this.wheel.add(new LinkedHashSet<Operation<?>>());
+        }
+        this.timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "azure-lro-poller");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * @return the poller shared by the Azure clients that do not set their own, which
+     * cannot be closed
+     */
+    public static LongRunningOperationPoller shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Polls an operation until it reaches a terminal state, with the {@link PollingIntervalPolicy#DEFAULT}
+     * policy.
+     *
+     * @param pollingState the state of the operation
+     * @param pollOnce the factory of a single poll, emitting the updated polling state
+     * @param <T> the type of the resource
+     * @return the observable emitting the polling state after each poll
+     */
+    public <T> Observable<PollingState<T>> poll(final PollingState<T> pollingState, final Func0<Single<PollingState<T>>> pollOnce) {
+        return poll(pollingState, PollingIntervalPolicy.DEFAULT, pollOnce);
+    }
+
+    /**
+     * Polls an operation until it reaches a terminal state. A poll due right away on
+     * subscription is issued on the subscribing thread, the next ones after the delay
+     * given by the policy once the previous one completed. Unsubscribing stops the
+     * polling and cancels the poll in flight. Once the poller is closed, the operation
+     * fails with an {@link IllegalStateException}.
+     *
+     * @param pollingState the state of the operation
+     * @param policy the policy deciding the delays between the polls
+     * @param pollOnce the factory of a single poll, emitting the updated polling state
+     * @param <T> the type of the resource
+     * @return the observable emitting the polling state after each poll
+     */
+    public <T> Observable<PollingState<T>> poll(final PollingState<T> pollingState, final PollingIntervalPolicy policy,
+                                                final Func0<Single<PollingState<T>>> pollOnce) {
+        return Observable.unsafeCreate(new Observable.OnSubscribe<PollingState<T>>() {
+            @Override
+            public void call(Subscriber<? super PollingState<T>> subscriber) {
+                final Operation<T> operation = new Operation<>(subscriber, pollingState, policy, pollOnce);
+                operationCount.incrementAndGet();
+                if (closed) {
+                    operation.fail(closedException());
+                    return;
+                }
+                subscriber.add(Subscriptions.create(new Action0() {
+                    @Override
+                    public void call() {
+                        cancel(operation);
+                    }
+                }));
+                long delay = policy.delayInMilliseconds(pollingState, 0, 0);
+                if (delay <= 0) {
+                    dispatch(operation, true);
+                } else {
+                    schedule(operation, delay);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the number of operations being polled
+     */
+    public int operationCount() {
+        return operationCount.get();
+    }
+
+    /**
+     * @return the number of polls in flight
+     */
+    public int pollsInFlight() {
+        return pollsInFlight.get();
+    }
+
+    /**
+     * @return the number of polls completed since the poller was created
+     */
+    public long pollCount() {
+        return pollCount.get();
+    }
+
+    /**
+     * @return the average duration of a poll in milliseconds, or 0 if none completed yet
+     */
+    public double averagePollLatencyMillis() {
+        long count = pollCount.get();
+        return count == 0 ? 0 : pollLatencyNanos.get() / 1e6 / count;
+    }
+
+    /**
+     * @return the number of final GETs skipped because the last response was trusted as the final resource,
+     * see {@link LongRunningOperationOptions#withTrustLastResponse(boolean)}
+     */
+    public long skippedFinalGetCount() {
+        return skippedFinalGetCount.get();
+    }
+
+    /**
+     * @return true if the wheel is being ticked
+     */
+    boolean isTicking() {
+        synchronized (wheel) {
+            return ticking != null;
+        }
+    }
+
+    /**
+     * Records a final GET skipped because the last response was trusted.
+     */
+    void recordSkippedFinalGet() {
+        skippedFinalGetCount.incrementAndGet();
+    }
+
+    /**
+     * Stops the timer. The operations waiting for their next poll, those whose poll in
+     * flight completes without reaching a terminal state, and those subscribed from now
+     * on fail with an {@link IllegalStateException}.
+     *
+     * @throws IllegalStateException if this is the {@link #shared()} poller
+     */
+    @Override
+    public void close() {
+        if (!closeable) {
+            throw new IllegalStateException("The shared poller cannot be closed");
+        }
+        List<Operation<?>> waiting = new ArrayList<>();
+        synchronized (wheel) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Set<Operation<?>> bucket : wheel) {
+                waiting.addAll(bucket);
+                bucket.clear();
+            }
+            waitingCount = 0;
+            ticking = null;
+            timer.shutdownNow();
+        }
+        Operation<?> operation;
+        while ((operation = ready.poll()) != null) {
+            waiting.add(operation);
+        }
+        for (Operation<?> each : waiting) {
+            each.fail(closedException());
+        }
+    }
+
+    private static IllegalStateException closedException() {
+        return new IllegalStateException("The poller is closed");
+    }
+
+    private void schedule(Operation<?> operation, long delayMillis) {
+        if (delayMillis <= 0) {
+            dispatch(operation, false);
+            return;
+        }
+        synchronized (wheel) {
+            if (operation.done.get()) {
+                return;
+            }
+            if (!closed) {
+                operation.deadlineTick = tick + Math.max(1, (delayMillis + tickMillis - 1) / tickMillis);
+                wheel.get((int) (operation.deadlineTick % wheel.size())).add(operation);
+                if (waitingCount++ == 0) {
+                    ticking = timer.scheduleAtFixedRate(new Runnable() {
+                        @Override
+                        public void run() {
+                            tick();
+                        }
+                    }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+        }
+        operation.fail(closedException());
+    }
+
+    private void tick() {
+        List<Operation<?>> due = new ArrayList<>();
+        synchronized (wheel) {
+            tick++;
+            Set<Operation<?>> bucket = wheel.get((int) (tick % wheel.size()));
+            for (Operation<?> operation : bucket) {
+                if (operation.deadlineTick <= tick) {
+                    due.add(operation);
+                }
+            }
+            bucket.removeAll(due);
+            removed(due.size());
+        }
+        for (Operation<?> operation : due) {
+            dispatch(operation, false);
+        }
+    }
+
+    /**
+     * Stops ticking once the wheel is empty. The caller holds the wheel lock.
+     *
+     * @param count the number of operations removed from the wheel
+     */
+    private void removed(int count) {
+        waitingCount -= count;
+        if (waitingCount == 0 && ticking != null) {
+            ticking.cancel(false);
+            ticking = null;
+        }
+    }
+
+    private void dispatch(Operation<?> operation, boolean direct) {
+        if (closed) {
+            operation.fail(closedException());
+            return;
+        }
+        if (tryAcquire()) {
+            operation.poll(direct);
+        } else {
+            ready.add(operation);
+            drain();
+        }
+    }
+
+    private void drain() {
+        if (closed) {
+            Operation<?> operation;
+            while ((operation = ready.poll()) != null) {
+                operation.fail(closedException());
+            }
+            return;
+        }
+        while (!ready.isEmpty() && tryAcquire()) {
+            Operation<?> operation = ready.poll();
+            if (operation == null) {
+                pollsInFlight.decrementAndGet();
+                return;
+            }
+            operation.poll(false);
+        }
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = pollsInFlight.get();
+            if (current >= maxConcurrentPolls) {
+                return false;
+            }
+            if (pollsInFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void release() {
+        pollsInFlight.decrementAndGet();
+        drain();
+    }
+
+    private void cancel(Operation<?> operation) {
+        if (!operation.finish()) {
+            return;
+        }
+        synchronized (wheel) {
+            if (wheel.get((int) (operation.deadlineTick % wheel.size())).remove(operation)) {
+                removed(1);
+            }
+        }
+        ready.remove(operation);
+        operation.inFlight.unsubscribe();
+        if (operation.polling.compareAndSet(true, false)) {
+            release();
+        }
+    }
+
+    /**
+     * The polling of one operation.
+     *
+     * @param <T> the type of the resource
+     */
+    private final class Operation<T> {
+        private final Subscriber<? super PollingState<T>> subscriber;
+        private final PollingState<T> pollingState;
+        private final PollingIntervalPolicy policy;
+        private final Func0<Single<PollingState<T>>> pollOnce;
+        private final long startNanos = System.nanoTime();
+        private final AtomicInteger polls = new AtomicInteger();
+        private final AtomicBoolean done = new AtomicBoolean();
+        private final AtomicBoolean polling = new AtomicBoolean();
+        /** The poll in flight, unsubscribed once the operation is cancelled. */
+        private final SerialSubscription inFlight = new SerialSubscription();
+        /** The tick of the next poll, guarded by the wheel. */
+        private long deadlineTick;
+
+        Operation(Subscriber<? super PollingState<T>> subscriber, PollingState<T> pollingState,
+                  PollingIntervalPolicy policy, Func0<Single<PollingState<T>>> pollOnce) {
+            this.subscriber = subscriber;
+            this.pollingState = pollingState;
+            this.policy = policy;
+            this.pollOnce = pollOnce;
+        }
+
+        /**
+         * Issues a poll, the caller holds a permit.
+         */
+        void poll(boolean direct) {
+            if (done.get()) {
+                release();
+                return;
+            }
+            polling.set(true);
+            final long start = System.nanoTime();
+            Single<PollingState<T>> single;
+            try {
+                single = pollOnce.call();
+            } catch (RuntimeException e) {
+                completed(start);
+                fail(e);
+                return;
+            }
+            if (!direct) {
+                single = single.subscribeOn(scheduler);
+            }
+            SingleSubscriber<PollingState<T>> pollSubscriber = new SingleSubscriber<PollingState<T>>() {
+                @Override
+                public void onSuccess(PollingState<T> state) {
+                    completed(start);
+                    if (done.get()) {
+                        return;
+                    }
+                    subscriber.onNext(state);
+                    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                    if (state.isStatusTerminal()) {
+                        policy.onTerminal(state, elapsedMillis);
+                        if (finish()) {
+                            subscriber.onCompleted();
+                        }
+                    } else {
+                        schedule(Operation.this, policy.delayInMilliseconds(state, polls.incrementAndGet(), elapsedMillis));
+                    }
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    completed(start);
+                    fail(error);
+                }
+            };
+            // set before subscribing, so that a cancellation during a synchronous poll
+            // reaches its call, and a cancellation before it unsubscribes it right away
+            inFlight.set(pollSubscriber);
+            single.subscribe(pollSubscriber);
+        }
+
+        private void completed(long start) {
+            pollLatencyNanos.addAndGet(System.nanoTime() - start);
+            pollCount.incrementAndGet();
+            if (polling.compareAndSet(true, false)) {
+                release();
+            }
+        }
+
+        /**
+         * Fails the operation unless it is finished already.
+         *
+         * @param error the failure
+         */
+        void fail(Throwable error) {
+            if (finish()) {
+                subscriber.onError(error);
+            }
+        }
+
+        /**
+         * @return true if this call finished the operation
+         */
+        boolean finish() {
+            if (done.compareAndSet(false, true)) {
+                operationCount.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
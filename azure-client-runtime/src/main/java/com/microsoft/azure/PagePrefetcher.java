@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Fetches the pages of a {@link PagedList} ahead of its iteration on an executor.
+ *
+ * Since the link to a page is only known once the previous page is fetched, the pages
+ * are fetched one after the other, each fetch scheduling the next one as long as fewer
+ * than the given number of pages are waiting to be taken. Nothing is fetched once that
+ * many pages are waiting, so an abandoned iteration leaves no task running. A failure
+ * is queued after the pages fetched before it and thrown when it is taken.
+ *
+ * @param <E> the element type.
+ */
+final class PagePrefetcher<E> {
+    private final PagedList<E> pagedList;
+    private final int pages;
+    private final Executor executor;
+
+    /** The fetched pages and failures in order, guarded by this. */
+    private final Deque<Fetched<E>> fetched = new ArrayDeque<>();
+    /** The link of the next page to fetch, null after the last page, guarded by this. */
+    private String nextPageLink;
+    /** The link of the next page to take, guarded by this. */
+    private String takeLink;
+    /** Whether a fetch is running, guarded by this. */
+    private boolean fetching;
+    /** Incremented to discard the result of a running fetch, guarded by this. */
+    private int generation;
+    /** Whether the prefetcher was closed, guarded by this. */
+    private boolean closed;
+
+    /**
+     * Creates a prefetcher and starts fetching.
+     *
+     * @param pagedList the list the pages are fetched for
+     * @param nextPageLink the link of the first page to fetch
+     * @param pages the maximum number of pages fetched ahead
+     * @param executor the executor the pages are fetched on
+     */
+    PagePrefetcher(PagedList<E> pagedList, String nextPageLink, int pages, Executor executor) {
+        this.pagedList = pagedList;
+        this.pages = pages;
+        this.executor = executor;
+        synchronized (this) {
+            this.nextPageLink = nextPageLink;
+            this.takeLink = nextPageLink;
+            fill();
+        }
+    }
+
+    /**
+     * Takes a page, waiting for it to be fetched. If the page is not the next one fetched,
+     * the fetched pages are dropped and fetching starts again from the page.
+     *
+     * @param link the link of the page
+     * @return the page, or null if the link has no page
+     * @throws IOException if the page could not be fetched
+     */
+    synchronized Page<E> take(String link) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("The prefetcher is closed");
+        }
+        if (!link.equals(takeLink)) {
+            restart(link);
+        }
+        while (fetched.isEmpty()) {
+            if (!fetching) {
+                restart(link);
+                continue;
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the page " + link);
+            }
+        }
+        Fetched<E> head = fetched.poll();
+        fill();
+        if (head.failure != null) {
+            // the next take fetches the page again
+            takeLink = null;
+            throwFailure(head.failure);
+        }
+        takeLink = head.page == null ? null : head.page.nextPageLink();
+        return head.page;
+    }
+
+    /**
+     * Drops the fetched pages and stops fetching.
+     */
+    synchronized void close() {
+        closed = true;
+        generation++;
+        fetching = false;
+        fetched.clear();
+    }
+
+    private void restart(String link) {
+        generation++;
+        fetching = false;
+        fetched.clear();
+        nextPageLink = link;
+        takeLink = link;
+        fill();
+    }
+
+    /**
+     * Starts fetching the next page if it is needed. The caller holds the lock.
+     */
+    private void fill() {
+        if (closed || fetching || nextPageLink == null || nextPageLink.isEmpty() || fetched.size() >= pages) {
+            return;
+        }
+        final String link = nextPageLink;
+        final int fetchGeneration = generation;
+        fetching = true;
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    fetch(link, fetchGeneration);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            completed(fetchGeneration, null, e);
+        }
+    }
+
+    private void fetch(String link, int fetchGeneration) {
+        Page<E> page = null;
+        Throwable failure = null;
+        try {
+            page = pagedList.nextPage(link);
+        } catch (Throwable t) {
+            failure = t;
+        }
+        synchronized (this) {
+            completed(fetchGeneration, page, failure);
+        }
+    }
+
+    private void completed(int fetchGeneration, Page<E> page, Throwable failure) {
+        if (fetchGeneration != generation) {
+            return;
+        }
+        fetching = false;
+        fetched.add(new Fetched<>(page, failure));
+        nextPageLink = failure != null || page == null ? null : page.nextPageLink();
+        notifyAll();
+        fill();
+    }
+
+    private static void throwFailure(Throwable failure) throws IOException {
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        throw new RuntimeException(failure);
+    }
+
+    /**
+     * A fetched page or the failure to fetch it.
+     */
+    private static final class Fetched<E> {
+        private final Page<E> page;
+        private final Throwable failure;
+
+        Fetched(Page<E> page, Throwable failure) {
+            this.page = page;
+            this.failure = failure;
+        }
+    }
+}
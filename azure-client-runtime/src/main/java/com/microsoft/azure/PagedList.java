@@ -6,21 +6,29 @@
 
 package com.microsoft.azure;
 
+import com.microsoft.azure.ListOperationCallback.PagingBehavior;
 import com.microsoft.rest.RestException;
+import rx.functions.Func1;
 
 import java.io.IOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
 
 /**
  * Defines a list response from a paging operation. The pages are
  * lazy initialized when an instance of this class is iterated.
  *
+ * The list keeps every page loaded. To go through a large list once without
+ * keeping it, use {@link #streaming()} or {@link #forEachPage(Func1)} instead.
+ *
  * @param <E> the element type.
  */
 public abstract class PagedList<E> implements List<E> {
@@ -30,6 +38,12 @@ public abstract class PagedList<E> implements List<E> {
     private Page<E> currentPage;
     /** Cached page right after the current one. */
     private Page<E> cachedPage;
+    /** The link the cached page was fetched from. */
+    private String cachedPageLink;
+    /** The positions of the pages loaded, in order. */
+    private final List<PagePosition> pagePositions = new ArrayList<>();
+    /** Fetches the pages after the cached one, null unless prefetching. */
+    private PagePrefetcher<E> prefetcher;
 
     /**
      * Creates an instance of Pagedlist.
@@ -53,13 +67,77 @@ public abstract class PagedList<E> implements List<E> {
             items.addAll(retrievedItems);
         }
         currentPage = page;
+        addPagePosition(null, 0, retrievedItems);
         cachePage(page.nextPageLink());
     }
 
+    /**
+     * Creates an instance of PagedList resuming a listing at a cursor, taken with
+     * {@link #cursor(int)} on a previous instance. The page holding the item at the
+     * cursor is fetched again with {@link #nextPage(String)}, and the list starts with
+     * the item at the cursor.
+     *
+     * @param cursor the cursor
+     * @throws IllegalArgumentException if the cursor is in the first page of the listing,
+     *                                  which cannot be fetched from a link
+     */
+    public PagedList(PagedListCursor cursor) {
+        this();
+        if (cursor == null) {
+            throw new IllegalArgumentException("cursor == null");
+        }
+        if (!cursor.isResumable()) {
+            throw new IllegalArgumentException("The cursor is in the first page, which has no link: " + cursor);
+        }
+        if (cursor.isCompleted()) {
+            return;
+        }
+        Page<E> page;
+        try {
+            page = nextPage(cursor.pageLink());
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        if (page == null) {
+            return;
+        }
+        List<E> retrievedItems = page.items() == null ? Collections.<E>emptyList() : page.items();
+        int skipped = Math.min(cursor.offset(), retrievedItems.size());
+        List<E> remainingItems = retrievedItems.subList(skipped, retrievedItems.size());
+        items.addAll(remainingItems);
+        currentPage = page;
+        pagePositions.add(new PagePosition(cursor.pageLink(), 0, skipped, remainingItems.size()));
+        cachePage(page.nextPageLink());
+    }
+
+    /**
+     * Creates an instance of PagedList resuming a listing at a cursor.
+     *
+     * @param cursor the cursor, taken with {@link #cursor(int)} on a previous instance
+     * @param nextPage the function loading a page from a next page link
+     * @param <E> the element type
+     * @return the list starting with the item at the cursor
+     * @throws IllegalArgumentException if the cursor is in the first page of the listing,
+     *                                  which cannot be fetched from a link
+     * @see #PagedList(PagedListCursor)
+     */
+    public static <E> PagedList<E> fromCursor(PagedListCursor cursor, final Func1<String, Page<E>> nextPage) {
+        if (nextPage == null) {
+            throw new IllegalArgumentException("nextPage == null");
+        }
+        return new PagedList<E>(cursor) {
+            @Override
+            public Page<E> nextPage(String nextPageLink) {
+                return nextPage.call(nextPageLink);
+            }
+        };
+    }
+
     private void cachePage(String nextPageLink) {
         try {
             while (nextPageLink != null && nextPageLink != "") {
-                cachedPage = nextPage(nextPageLink);
+                cachedPageLink = nextPageLink;
+                cachedPage = prefetcher != null ? prefetcher.take(nextPageLink) : nextPage(nextPageLink);
                 if (cachedPage == null) {
                     break;
                 }
@@ -84,6 +162,42 @@ public abstract class PagedList<E> implements List<E> {
      */
     public abstract Page<E> nextPage(String nextPageLink) throws RestException, IOException;
 
+    /**
+     * Fetches up to the given number of pages ahead of the iteration in the background,
+     * instead of fetching each page when the previous one is reached. The pages are still
+     * loaded in order, and a failure to fetch a page is thrown when the page is reached,
+     * as it is without prefetching. Nothing more is fetched once the given number of pages
+     * is waiting to be loaded, so an abandoned iteration stops the prefetching.
+     *
+     * {@link #nextPage(String)} is called on the executor, one page at a time.
+     *
+     * @param pages the maximum number of pages fetched ahead
+     * @param executor the executor the pages are fetched on
+     * @return this list
+     */
+    public PagedList<E> withPrefetch(int pages, Executor executor) {
+        if (pages <= 0) {
+            throw new IllegalArgumentException("pages <= 0: " + pages);
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor == null");
+        }
+        stopPrefetch();
+        prefetcher = new PagePrefetcher<>(this, cachedPage == null ? null : cachedPage.nextPageLink(), pages, executor);
+        return this;
+    }
+
+    /**
+     * Stops fetching pages in the background and drops the pages fetched ahead; the next
+     * pages are fetched when they are reached.
+     */
+    public void stopPrefetch() {
+        if (prefetcher != null) {
+            prefetcher.close();
+            prefetcher = null;
+        }
+    }
+
     /**
      * If there are more pages available.
      *
@@ -98,8 +212,10 @@ public abstract class PagedList<E> implements List<E> {
      * The exceptions are wrapped into Java Runtime exceptions.
      */
     public void loadNextPage() {
+        checkNotStreamed();
         this.currentPage = cachedPage;
         cachedPage = null;
+        addPagePosition(cachedPageLink, loadedCount(), currentPage.items());
         this.items.addAll(currentPage.items());
         cachePage(currentPage.nextPageLink());
     }
@@ -113,6 +229,137 @@ public abstract class PagedList<E> implements List<E> {
         }
     }
 
+    /**
+     * Streams the items: the items loaded so far, then the items of the next pages, each page
+     * being dropped once its items are iterated, so that only about a page is kept in memory.
+     *
+     * The stream is forward only and can be iterated once. The list no longer holds the items
+     * once it is streamed; its {@link List} methods and {@link #loadNextPage()} then throw
+     * {@link IllegalStateException}, while {@link #currentPage()} and {@link #hasNextPage()}
+     * follow the stream.
+     *
+     * @return the items, to iterate once
+     * @throws IllegalStateException if the list has already been streamed
+     */
+    public Iterable<E> streaming() {
+        final List<E> loaded = startStreaming();
+        return new Iterable<E>() {
+            private boolean iterated;
+
+            @Override
+            public Iterator<E> iterator() {
+                if (iterated) {
+                    throw new IllegalStateException("The stream can be iterated once");
+                }
+                iterated = true;
+                return new StreamingItr(loaded);
+            }
+        };
+    }
+
+    /**
+     * Streams the pages, as {@link #streaming()} streams the items: the action is called with the
+     * items loaded so far if there are any, then with the items of each next page, and the page
+     * is dropped once the action returns.
+     *
+     * @param action the action called with the items of each page; it returns
+     *               {@link PagingBehavior#STOP} to stop streaming
+     * @throws IllegalStateException if the list has already been streamed
+     */
+    public void forEachPage(Func1<List<E>, PagingBehavior> action) {
+        List<E> loaded = startStreaming();
+        if (!loaded.isEmpty() && action.call(loaded) == PagingBehavior.STOP) {
+            return;
+        }
+        while (hasNextPage()) {
+            if (action.call(nextStreamedPage()) == PagingBehavior.STOP) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the items loaded so far
+     */
+    List<E> loadedItems() {
+        checkNotStreamed();
+        return new ArrayList<>(items);
+    }
+
+    private List<E> startStreaming() {
+        checkNotStreamed();
+        List<E> loaded = items;
+        items = new StreamedList<>();
+        return loaded;
+    }
+
+    /**
+     * Moves to the next page without keeping its items.
+     *
+     * @return the items of the page
+     */
+    private List<E> nextStreamedPage() {
+        this.currentPage = cachedPage;
+        cachedPage = null;
+        addPagePosition(cachedPageLink, loadedCount(), currentPage.items());
+        cachePage(currentPage.nextPageLink());
+        return currentPage.items();
+    }
+
+    private void checkNotStreamed() {
+        if (items instanceof StreamedList) {
+            throw StreamedList.streamed();
+        }
+    }
+
+    /**
+     * Gets the cursor of an item, from which the listing can be resumed with
+     * {@link #PagedList(PagedListCursor)}. The index counts the items as they were loaded,
+     * or streamed, without the items added or removed through the {@link List} methods;
+     * it is the number of items consumed to resume after them.
+     *
+     * @param index the index of the item, at most the number of items loaded so far
+     * @return the cursor of the item, or a completed cursor if the index is past the last item
+     * @throws IndexOutOfBoundsException if the item is not loaded yet
+     */
+    public PagedListCursor cursor(int index) {
+        int loaded = loadedCount();
+        if (index < 0 || index > loaded) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Loaded: " + loaded);
+        }
+        if (index == loaded) {
+            return hasNextPage() ? new PagedListCursor(cachedPageLink, 0, false) : new PagedListCursor(null, 0, true);
+        }
+        // the last page starting at or before the index
+        int low = 0;
+        int high = pagePositions.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (pagePositions.get(middle).start <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        PagePosition position = pagePositions.get(low);
+        return new PagedListCursor(position.link, position.skipped + index - position.start, false);
+    }
+
+    /**
+     * @return the number of items loaded or streamed so far
+     */
+    private int loadedCount() {
+        if (pagePositions.isEmpty()) {
+            return 0;
+        }
+        PagePosition last = pagePositions.get(pagePositions.size() - 1);
+        return last.start + last.size;
+    }
+
+    private void addPagePosition(String link, int start, List<E> pageItems) {
+        pagePositions.add(new PagePosition(link, start, 0, pageItems == null ? 0 : pageItems.size()));
+    }
+
     /**
      * Gets the latest page fetched.
      *
@@ -130,12 +377,104 @@ public abstract class PagedList<E> implements List<E> {
     protected void setCurrentPage(Page<E> currentPage) {
         this.currentPage = currentPage;
         List<E> retrievedItems = currentPage.items();
+        addPagePosition(null, loadedCount(), retrievedItems);
         if (retrievedItems != null) {
             items.addAll(retrievedItems);
         }
         cachePage(currentPage.nextPageLink());
     }
 
+    /**
+     * The iterator of {@link #streaming()}.
+     */
+    private class StreamingItr implements Iterator<E> {
+        /** The iterator over the items of the current page. */
+        private Iterator<E> pageItr;
+
+        StreamingItr(List<E> loaded) {
+            this.pageItr = loaded.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!pageItr.hasNext()) {
+                if (!hasNextPage()) {
+                    return false;
+                }
+                pageItr = nextStreamedPage().iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return pageItr.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("The stream is read only");
+        }
+    }
+
+    /**
+     * Where the items of a loaded page are in the list.
+     */
+    private static final class PagePosition {
+        /** The link the page was fetched from, null for the first page. */
+        private final String link;
+        /** The index of the first item of the page in the items loaded. */
+        private final int start;
+        /** The number of items of the page skipped when resuming at a cursor. */
+        private final int skipped;
+        /** The number of items of the page loaded. */
+        private final int size;
+
+        PagePosition(String link, int start, int skipped, int size) {
+            this.link = link;
+            this.start = start;
+            this.skipped = skipped;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Replaces the items of a streamed list, failing every access.
+     */
+    private static final class StreamedList<E> extends AbstractList<E> {
+        @Override
+        public E get(int index) {
+            throw streamed();
+        }
+
+        @Override
+        public int size() {
+            throw streamed();
+        }
+
+        @Override
+        public E set(int index, E element) {
+            throw streamed();
+        }
+
+        @Override
+        public void add(int index, E element) {
+            throw streamed();
+        }
+
+        @Override
+        public E remove(int index) {
+            throw streamed();
+        }
+
+        private static IllegalStateException streamed() {
+            return new IllegalStateException("The list has been streamed and no longer holds the items");
+        }
+    }
+
     /**
      * The implementation of {@link ListIterator} for PagedList.
      */
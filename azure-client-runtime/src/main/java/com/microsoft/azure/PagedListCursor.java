@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.io.Serializable;
+
+/**
+ * A position in the items of a {@link PagedList}, from which a listing can be resumed
+ * with {@link PagedList#PagedList(PagedListCursor)}: the link to the page holding the
+ * item and the offset of the item in the page. The cursor can be serialized with Java
+ * serialization or with Jackson.
+ */
+public final class PagedListCursor implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @JsonProperty("pageLink")
+    private final String pageLink;
+    @JsonProperty("offset")
+    private final int offset;
+    @JsonProperty("completed")
+    private final boolean completed;
+
+    /**
+     * Creates a cursor.
+     *
+     * @param pageLink the link to the page holding the item, null for the first page
+     * @param offset the offset of the item in the page
+     * @param completed true if the cursor is after the last item
+     */
+    @JsonCreator
+    public PagedListCursor(@JsonProperty("pageLink") String pageLink,
+                           @JsonProperty("offset") int offset,
+                           @JsonProperty("completed") boolean completed) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset < 0: " + offset);
+        }
+        this.pageLink = pageLink;
+        this.offset = offset;
+        this.completed = completed;
+    }
+
+    /**
+     * @return the link to the page holding the item, or null if the item is in the first
+     * page, which is returned by the listing request rather than fetched from a link
+     */
+    public String pageLink() {
+        return pageLink;
+    }
+
+    /**
+     * @return the offset of the item in its page
+     */
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * @return true if the cursor is after the last item of the list
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * @return true if the listing can be resumed from the cursor, that is unless the item
+     * is in the first page
+     */
+    public boolean isResumable() {
+        return completed || pageLink != null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PagedListCursor)) {
+            return false;
+        }
+        PagedListCursor other = (PagedListCursor) o;
+        return offset == other.offset
+                && completed == other.completed
+                && (pageLink == null ? other.pageLink == null : pageLink.equals(other.pageLink));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = pageLink == null ? 0 : pageLink.hashCode();
+        result = 31 * result + offset;
+        return 31 * result + (completed ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return completed ? "PagedListCursor{completed}" : "PagedListCursor{pageLink=" + pageLink + ", offset=" + offset + "}";
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure;
+
+import com.microsoft.rest.ServiceResponse;
+import rx.Observable;
+import rx.Observer;
+import rx.Scheduler;
+import rx.functions.Action1;
+import rx.functions.Action3;
+import rx.functions.Func0;
+import rx.functions.Func1;
+import rx.functions.Func2;
+import rx.observables.AsyncOnSubscribe;
+import rx.observables.SyncOnSubscribe;
+import rx.schedulers.Schedulers;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Utility methods exposing paging operations as observables that honor
+ * backpressure: the next page is only fetched when downstream requests more
+ * data, so a slow consumer does not force pages to be fetched and buffered.
+ * The observables can be bridged to Reactive Streams publishers, e.g. to plug
+ * into Reactor or RxJava 2 pipelines.
+ */
+public final class PagedObservables {
+    private PagedObservables() {
+    }
+
+    /**
+     * Creates an observable of the pages of a paging operation. The first page is
+     * fetched on the first request and each following page is fetched once the
+     * previous one is delivered and more pages are requested.
+     *
+     * @param first the observable to the first page
+     * @param next the observable to poll subsequent pages
+     * @param <E> the element type
+     * @return the observable of pages
+     */
+    public static <E> Observable<Page<E>> pages(final Observable<ServiceResponse<Page<E>>> first, final Func1<String, Observable<ServiceResponse<Page<E>>>> next) {
+        return Observable.create(AsyncOnSubscribe.createSingleState(
+            new Func0<PagingState>() {
+                @Override
+                public PagingState call() {
+                    return new PagingState();
+                }
+            },
+            new Action3<PagingState, Long, Observer<Observable<? extends Page<E>>>>() {
+                @Override
+                public void call(final PagingState state, Long requested, Observer<Observable<? extends Page<E>>> observer) {
+                    Observable<ServiceResponse<Page<E>>> page;
+                    if (state.first) {
+                        state.first = false;
+                        page = first;
+                    } else if (state.nextPageLink != null) {
+                        page = next.call(state.nextPageLink);
+                    } else {
+                        observer.onCompleted();
+                        return;
+                    }
+                    observer.onNext(page
+                        .single()
+                        .map(new Func1<ServiceResponse<Page<E>>, Page<E>>() {
+                            @Override
+                            public Page<E> call(ServiceResponse<Page<E>> response) {
+                                return response.body();
+                            }
+                        })
+                        .doOnNext(new Action1<Page<E>>() {
+                            @Override
+                            public void call(Page<E> p) {
+                                state.nextPageLink = p.nextPageLink();
+                            }
+                        }));
+                }
+            }));
+    }
+
+    /**
+     * Creates an observable of the items of a paging operation. At most one page
+     * is fetched ahead of the items being consumed.
+     *
+     * @param first the observable to the first page
+     * @param next the observable to poll subsequent pages
+     * @param <E> the element type
+     * @return the observable of items
+     */
+    public static <E> Observable<E> items(final Observable<ServiceResponse<Page<E>>> first, final Func1<String, Observable<ServiceResponse<Page<E>>>> next) {
+        return pages(first, next).flatMapIterable(new Func1<Page<E>, Iterable<E>>() {
+            @Override
+            public Iterable<E> call(Page<E> page) {
+                List<E> items = page.items();
+                return items == null ? Collections.<E>emptyList() : items;
+            }
+        }, 1);
+    }
+
+    /**
+     * Creates an observable of the pages of a {@link PagedList}: the items loaded so far, if
+     * there are any, then the items of each next page, loaded into the list when it is requested.
+     * The list must not be used by other threads while the observable is subscribed.
+     *
+     * @param pagedList the list
+     * @param <E> the element type
+     * @return the observable of the items of each page
+     */
+    public static <E> Observable<List<E>> pages(final PagedList<E> pagedList) {
+        return Observable.create(SyncOnSubscribe.createStateful(
+            new Func0<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return true;
+                }
+            },
+            new Func2<Boolean, Observer<? super List<E>>, Boolean>() {
+                @Override
+                public Boolean call(Boolean first, Observer<? super List<E>> observer) {
+                    if (first) {
+                        List<E> loaded = pagedList.loadedItems();
+                        if (!loaded.isEmpty()) {
+                            observer.onNext(loaded);
+                            return false;
+                        }
+                    }
+                    if (pagedList.hasNextPage()) {
+                        pagedList.loadNextPage();
+                        observer.onNext(pagedList.currentPage().items());
+                    } else {
+                        observer.onCompleted();
+                    }
+                    return false;
+                }
+            }));
+    }
+
+    /**
+     * Maps the items of a {@link PagedList} on the computation scheduler, in order.
+     *
+     * @param pagedList the list
+     * @param mapper the function mapping an item
+     * @param parallelism the maximum number of pages mapped at the same time
+     * @param <E> the element type
+     * @param <R> the mapped type
+     * @return the observable of the mapped items, in the order of the list
+     * @see #parallelMap(PagedList, Func1, int, Scheduler)
+     */
+    public static <E, R> Observable<R> parallelMap(PagedList<E> pagedList, Func1<? super E, ? extends R> mapper, int parallelism) {
+        return parallelMap(pagedList, mapper, parallelism, Schedulers.computation());
+    }
+
+    /**
+     * Maps the items of a {@link PagedList} page by page on a scheduler, in order. The pages
+     * are loaded on the I/O scheduler while the pages loaded before them are mapped, and up to
+     * the given number of pages are mapped at the same time, each on a worker of the scheduler.
+     * The mapped items of a page are emitted once the items of the pages before it are.
+     *
+     * The list must not be used by other threads while the observable is subscribed.
+     *
+     * @param pagedList the list
+     * @param mapper the function mapping an item
+     * @param parallelism the maximum number of pages mapped at the same time
+     * @param scheduler the scheduler the items are mapped on
+     * @param <E> the element type
+     * @param <R> the mapped type
+     * @return the observable of the mapped items, in the order of the list
+     */
+    public static <E, R> Observable<R> parallelMap(PagedList<E> pagedList, final Func1<? super E, ? extends R> mapper,
+                                                   int parallelism, final Scheduler scheduler) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism <= 0: " + parallelism);
+        }
+        return pages(pagedList)
+            .subscribeOn(Schedulers.io())
+            .concatMapEager(new Func1<List<E>, Observable<R>>() {
+                @Override
+                public Observable<R> call(List<E> items) {
+                    return Observable.from(items).map(mapper).subscribeOn(scheduler);
+                }
+            }, parallelism, parallelism);
+    }
+
+    /**
+     * The position of a paging operation.
+     */
+    private static final class PagingState {
+        private boolean first = true;
+        private volatile String nextPageLink;
+    }
+}
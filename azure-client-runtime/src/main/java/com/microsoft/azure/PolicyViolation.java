@@ -18,6 +18,12 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
  * An instance of this class provides Azure policy violation information.
  */
 public class PolicyViolation extends TypedErrorInfo {
+    /**
+     * The mapper shared by all policy violations.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES, true);
+
     /**
      * Policy violation error details.
      */
@@ -33,9 +39,7 @@ public class PolicyViolation extends TypedErrorInfo {
      */
     public PolicyViolation(String type, ObjectNode policyErrorInfo) throws JsonParseException, JsonMappingException, IOException {
         super(type, policyErrorInfo);
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.configure(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES, true);
-        this.policyErrorInfo = objectMapper.readValue(policyErrorInfo.toString(), PolicyViolationErrorInfo.class);
+        this.policyErrorInfo = MAPPER.readValue(policyErrorInfo.toString(), PolicyViolationErrorInfo.class);
     }
     
     /**
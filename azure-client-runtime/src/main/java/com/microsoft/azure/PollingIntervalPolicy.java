@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+import com.microsoft.azure.management.apigeneration.Beta.SinceVersion;
+
+/**
+ * Decides when the next poll of a long running operation is issued.
+ */
+@Beta(SinceVersion.V1_2_0)
+public interface PollingIntervalPolicy {
+    /**
+     * The default policy: polls once right away, then waits for the delay in the
+     * 'Retry-After' header of the last response, or the long running operation retry
+     * timeout of the client, or 30 seconds.
+     */
+    PollingIntervalPolicy DEFAULT = new DefaultPollingIntervalPolicy();
+
+    /**
+     * Gets the delay before the next poll.
+     *
+     * @param pollingState the current polling state
+     * @param pollCount the number of polls issued so far, 0 before the first poll
+     * @param elapsedMillis the milliseconds elapsed since the polling started
+     * @return the delay in milliseconds, 0 or less to poll right away
+     */
+    long delayInMilliseconds(PollingState<?> pollingState, int pollCount, long elapsedMillis);
+
+    /**
+     * Called when the operation reached a terminal state.
+     *
+     * @param pollingState the terminal polling state
+     * @param elapsedMillis the milliseconds elapsed since the polling started
+     */
+    void onTerminal(PollingState<?> pollingState, long elapsedMillis);
+}
@@ -0,0 +1,242 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.microsoft.rest.protocol.SerializerAdapter;
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The body of a polling response, parsed once. With a Jackson serializer adapter the
+ * body is kept as buffered tokens, so that the resource can be bound from them later
+ * without parsing the body again; the id, the status, the provisioning state and the
+ * presence of an error are extracted while parsing.
+ */
+final class PollingResponseBody {
+    /** The factory used to scan the body when the serializer adapter is not Jackson based. */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final SerializerAdapter<?> serializerAdapter;
+    /** The mapper binding the tokens, null if the serializer adapter is not Jackson based. */
+    private final ObjectMapper mapper;
+    /** The buffered tokens, null if the serializer adapter is not Jackson based. */
+    private final TokenBuffer tokens;
+    /** The body, null if the serializer adapter is Jackson based. */
+    private final String content;
+    private String id;
+    private String status;
+    private String provisioningState;
+    private boolean hasError;
+    private boolean hasProperties;
+
+    private PollingResponseBody(SerializerAdapter<?> serializerAdapter, byte[] bytes) throws IOException {
+        this.serializerAdapter = serializerAdapter;
+        if (serializerAdapter.serializer() instanceof ObjectMapper) {
+            this.mapper = (ObjectMapper) serializerAdapter.serializer();
+            this.content = null;
+        } else {
+            this.mapper = null;
+            this.content = new String(bytes, StandardCharsets.UTF_8);
+        }
+        try (JsonParser parser = mapper != null ? mapper.getFactory().createParser(bytes) : JSON_FACTORY.createParser(bytes)) {
+            // floats are buffered as the mapper binds untyped values
+            this.tokens = mapper != null
+                    ? new TokenBuffer(parser).forceUseOfBigDecimal(mapper.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS))
+                    : null;
+            scan(parser);
+        }
+    }
+
+    /**
+     * Reads the body of a response and closes it.
+     *
+     * @param serializerAdapter the adapter the resources are bound with
+     * @param response the response
+     * @return the body, or null if the response has no or an empty body
+     * @throws IOException if the body cannot be read or is not valid JSON
+     */
+    static PollingResponseBody read(SerializerAdapter<?> serializerAdapter, Response<ResponseBody> response) throws IOException {
+        return parse(serializerAdapter, bytes(response));
+    }
+
+    /**
+     * Reads the raw body of a response and closes it.
+     *
+     * @param response the response
+     * @return the body, or null if the response has no body
+     * @throws IOException if the body cannot be read
+     */
+    static byte[] bytes(Response<ResponseBody> response) throws IOException {
+        ResponseBody body = response.body();
+        if (body == null) {
+            return null;
+        }
+        try {
+            return body.bytes();
+        } finally {
+            body.close();
+        }
+    }
+
+    /**
+     * Parses a raw body read with {@link #bytes(Response)}.
+     *
+     * @param serializerAdapter the adapter the resources are bound with
+     * @param bytes the raw body, or null
+     * @return the body, or null if there is no or an empty body
+     * @throws IOException if the body is not valid JSON
+     */
+    static PollingResponseBody parse(SerializerAdapter<?> serializerAdapter, byte[] bytes) throws IOException {
+        PollingResponseBody result = bytes == null || bytes.length == 0 ? null : new PollingResponseBody(serializerAdapter, bytes);
+        return result == null || result.isEmpty() ? null : result;
+    }
+
+    /**
+     * @return the top level 'id', as returned for a resource, or null
+     */
+    String id() {
+        return id;
+    }
+
+    /**
+     * @return the top level 'status', as returned by the Azure-AsyncOperation endpoint, or null
+     */
+    String status() {
+        return status;
+    }
+
+    /**
+     * @return the 'properties.provisioningState' of the resource, or null
+     */
+    String provisioningState() {
+        return provisioningState;
+    }
+
+    /**
+     * @return true if the body is the status of an operation rather than a resource, that is
+     * it has a top level 'status' but no 'properties'
+     */
+    boolean isOperationStatus() {
+        return status != null && !hasProperties;
+    }
+
+    /**
+     * Binds the top level 'error'.
+     *
+     * @return the error, or null if the body has no error
+     * @throws IOException if the error cannot be bound
+     */
+    CloudError error() throws IOException {
+        if (!hasError) {
+            return null;
+        }
+        if (mapper == null) {
+            AzureAsyncOperation asyncOperation = serializerAdapter.deserialize(content, AzureAsyncOperation.class);
+            return asyncOperation == null ? null : asyncOperation.getError();
+        }
+        try (JsonParser parser = tokens.asParser(mapper)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                if ("error".equals(name)) {
+                    return mapper.readValue(parser, CloudError.class);
+                }
+                parser.skipChildren();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Binds the whole body.
+     *
+     * @param type the type to bind to
+     * @param <U> the type to bind to
+     * @return the bound object
+     * @throws IOException if the body cannot be bound to the type
+     */
+    <U> U bind(Type type) throws IOException {
+        if (mapper == null) {
+            return serializerAdapter.deserialize(content, type);
+        }
+        try (JsonParser parser = tokens.asParser(mapper)) {
+            return mapper.readValue(parser, mapper.getTypeFactory().constructType(type));
+        }
+    }
+
+    /**
+     * @return the body as a string, for error messages
+     */
+    @Override
+    public String toString() {
+        if (content != null) {
+            return content;
+        }
+        try (JsonParser parser = tokens.asParser(mapper)) {
+            return mapper.writeValueAsString(mapper.readTree(parser));
+        } catch (IOException e) {
+            return tokens.toString();
+        }
+    }
+
+    private boolean isEmpty() {
+        return tokens != null ? tokens.firstToken() == null : content.trim().isEmpty();
+    }
+
+    private void scan(JsonParser parser) throws IOException {
+        int depth = 0;
+        String name = null;
+        boolean inProperties = false;
+        JsonToken token;
+        while ((token = parser.nextToken()) != null) {
+            if (tokens != null) {
+                tokens.copyCurrentEvent(parser);
+            }
+            switch (token) {
+                case START_OBJECT:
+                    inProperties |= depth == 1 && "properties".equals(name);
+                    depth++;
+                    break;
+                case START_ARRAY:
+                    depth++;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    depth--;
+                    inProperties &= depth > 1;
+                    break;
+                case FIELD_NAME:
+                    name = parser.getCurrentName();
+                    hasError |= depth == 1 && "error".equals(name);
+                    hasProperties |= depth == 1 && "properties".equals(name);
+                    break;
+                case VALUE_STRING:
+                    if (depth == 1 && "status".equals(name)) {
+                        status = parser.getText();
+                    } else if (depth == 1 && "id".equals(name)) {
+                        id = parser.getText();
+                    } else if (depth == 2 && inProperties && "provisioningState".equals(name)) {
+                        provisioningState = parser.getText();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
@@ -9,23 +9,25 @@ package com.microsoft.azure;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.joda.JodaModule;
 import com.microsoft.rest.protocol.SerializerAdapter;
+import com.microsoft.rest.serializer.Base64UrlDeserializer;
 import com.microsoft.rest.serializer.Base64UrlSerializer;
 import com.microsoft.rest.serializer.ByteArraySerializer;
 import com.microsoft.rest.serializer.DateTimeRfc1123Serializer;
 import com.microsoft.rest.serializer.DateTimeSerializer;
 import com.microsoft.rest.serializer.HeadersSerializer;
+import okhttp3.HttpUrl;
 import okhttp3.ResponseBody;
 import retrofit2.Response;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.UUID;
 
 /**
  * An instance of this class defines polling status of a long running operation.
@@ -33,6 +35,8 @@ import java.lang.reflect.Type;
  * @param <T> the type of the resource the operation returns.
  */
 public class PollingState<T> {
+    /** The identifier of the long running operation, used as the checkpoint key. **/
+    private String operationId;
     /** The HTTP method used to initiate the long running operation. **/
     private String initialHttpMethod;
     /** The polling status. */
@@ -53,6 +57,8 @@ public class PollingState<T> {
     private String loggingContext;
     /** indicate how to retrieve the final state of LRO. **/
     private LongRunningFinalState finalStateVia;
+    /** indicate whether the last response is trusted as the final state of LRO. **/
+    private boolean trustLastResponse;
 
     // Non-serializable properties
     //
@@ -77,6 +83,18 @@ public class PollingState<T> {
     /** The adapter for a custom serializer. */
     @JsonIgnore
     private SerializerAdapter<?> serializerAdapter;
+    /** The url of the request that initiated the long running operation. */
+    @JsonIgnore
+    private String initialUrl;
+    /** The body the resource is bound from when asked for, null if bound already. */
+    @JsonIgnore
+    private PollingResponseBody unboundResource;
+    /** Whether the body the resource was read from can be trusted as the final resource. */
+    @JsonIgnore
+    private boolean resourceTrusted;
+    /** Whether the final GET was skipped because the last response was trusted. */
+    @JsonIgnore
+    private boolean finalGetSkipped;
 
     /**
      * Default constructor.
@@ -98,28 +116,21 @@ public class PollingState<T> {
      */
     public static <T> PollingState<T> create(Response<ResponseBody> response, LongRunningOperationOptions lroOptions, int defaultRetryTimeout, Type resourceType, SerializerAdapter<?> serializerAdapter) throws IOException {
         PollingState<T> pollingState = new PollingState<>();
+        pollingState.operationId = UUID.randomUUID().toString();
         pollingState.initialHttpMethod = response.raw().request().method();
+        pollingState.initialUrl = response.raw().request().url().toString();
         pollingState.defaultRetryTimeout = defaultRetryTimeout;
         pollingState.withResponse(response);
         pollingState.resourceType = resourceType;
         pollingState.serializerAdapter = serializerAdapter;
         pollingState.loggingContext = response.raw().request().header(LOGGING_HEADER);
         pollingState.finalStateVia = lroOptions.finalStateVia();
+        pollingState.trustLastResponse = lroOptions.trustLastResponse();
 
-        String responseContent = null;
-        PollingResource resource = null;
-        if (response.body() != null) {
-            responseContent = response.body().string();
-            response.body().close();
-        }
-        if (responseContent != null && !responseContent.isEmpty()) {
-            pollingState.resource = serializerAdapter.deserialize(responseContent, resourceType);
-            resource = serializerAdapter.deserialize(responseContent, PollingResource.class);
-        }
+        PollingResponseBody body = PollingResponseBody.read(serializerAdapter, response);
         final int statusCode = pollingState.response.code();
-        if (resource != null && resource.properties != null
-                && resource.properties.provisioningState != null) {
-            pollingState.withStatus(resource.properties.provisioningState, statusCode);
+        if (body != null && body.provisioningState() != null) {
+            pollingState.withStatus(body.provisioningState(), statusCode);
         } else {
             switch (statusCode) {
                 case 202:
@@ -134,6 +145,7 @@ public class PollingState<T> {
                     pollingState.withStatus(AzureAsyncOperation.FAILED_STATUS, statusCode);
             }
         }
+        pollingState.withResourceFrom(body);
         return pollingState;
     }
 
@@ -145,10 +157,9 @@ public class PollingState<T> {
      * @return the polling state
      */
     public static <ResultT> PollingState<ResultT> createFromJSONString(String serializedPollingState) {
-        ObjectMapper mapper = initMapper(new ObjectMapper());
         PollingState<ResultT> pollingState;
         try {
-            pollingState = mapper.readValue(serializedPollingState, PollingState.class);
+            pollingState = MapperHolder.MAPPER.readValue(serializedPollingState, PollingState.class);
         } catch (IOException exception) {
             throw new RuntimeException(exception);
         }
@@ -166,7 +177,9 @@ public class PollingState<T> {
     public static <ResultT> PollingState<ResultT> createFromPollingState(PollingState<?> other, ResultT result) {
         PollingState<ResultT> pollingState = new PollingState<>();
         pollingState.resource = result;
+        pollingState.operationId = other.operationId();
         pollingState.initialHttpMethod = other.initialHttpMethod();
+        pollingState.initialUrl = other.initialUrl;
         pollingState.status = other.status();
         pollingState.statusCode = other.statusCode();
         pollingState.azureAsyncOperationHeaderLink = other.azureAsyncOperationHeaderLink();
@@ -176,6 +189,7 @@ public class PollingState<T> {
         pollingState.retryTimeout = other.retryTimeout;
         pollingState.loggingContext = other.loggingContext;
         pollingState.finalStateVia = other.finalStateVia;
+        pollingState.trustLastResponse = other.trustLastResponse;
         return pollingState;
     }
 
@@ -183,20 +197,40 @@ public class PollingState<T> {
      * @return the polling state in json string format
      */
     public String serialize() {
-        ObjectMapper mapper = initMapper(new ObjectMapper());
         try {
-            return mapper.writeValueAsString(this);
+            return MapperHolder.MAPPER.writeValueAsString(this);
         } catch (JsonProcessingException exception) {
             throw new RuntimeException(exception);
         }
     }
 
     /**
-     * Gets the resource.
+     * Gets the identifier of the long running operation, kept when the polling state is serialized.
+     *
+     * @return the identifier.
+     */
+    public String operationId() {
+        if (operationId == null) {
+            // polling states serialized before the identifier was introduced
+            operationId = UUID.randomUUID().toString();
+        }
+        return operationId;
+    }
+
+    /**
+     * Gets the resource. The resource of a polling state that is not terminal is bound
+     * from the last response when asked for the first time; it is null if it cannot be bound.
      *
      * @return the resource.
      */
     public T resource() {
+        if (unboundResource != null) {
+            try {
+                bindResource();
+            } catch (IOException e) {
+                // Ignore and let resource be null
+            }
+        }
         return resource;
     }
 
@@ -259,20 +293,14 @@ public class PollingState<T> {
      * @throws IOException thrown by deserialization
      */
     void updateFromResponseOnPutPatch(Response<ResponseBody> response) throws CloudException, IOException {
-        String responseContent = null;
-        if (response.body() != null) {
-            responseContent = response.body().string();
-            response.body().close();
-        }
-
-        if (responseContent == null || responseContent.isEmpty()) {
+        PollingResponseBody body = PollingResponseBody.read(serializerAdapter, response);
+        if (body == null) {
             throw new CloudException("polling response does not contain a valid body", response);
         }
 
-        PollingResource resource = serializerAdapter.deserialize(responseContent, PollingResource.class);
         final int statusCode = response.code();
-        if (resource != null && resource.properties != null && resource.properties.provisioningState != null) {
-            this.withStatus(resource.properties.provisioningState, statusCode);
+        if (body.provisioningState() != null) {
+            this.withStatus(body.provisioningState(), statusCode);
         } else {
             this.withStatus(AzureAsyncOperation.SUCCESS_STATUS, statusCode);
         }
@@ -282,7 +310,7 @@ public class PollingState<T> {
         error.withCode(this.status());
         error.withMessage("Long running operation failed");
         this.withResponse(response);
-        this.withResource(serializerAdapter.<T>deserialize(responseContent, resourceType));
+        this.withResourceFrom(body);
     }
 
     /**
@@ -294,13 +322,8 @@ public class PollingState<T> {
 
     void updateFromResponseOnDeletePost(Response<ResponseBody> response) throws IOException {
         this.withResponse(response);
-        String responseContent = null;
-        if (response.body() != null) {
-            responseContent = response.body().string();
-            response.body().close();
-        }
-        this.withResource(serializerAdapter.<T>deserialize(responseContent, resourceType));
         withStatus(AzureAsyncOperation.SUCCESS_STATUS, response.code());
+        this.withResourceFrom(PollingResponseBody.read(serializerAdapter, response));
     }
 
     /**
@@ -318,6 +341,15 @@ public class PollingState<T> {
         return AzureAsyncOperation.DEFAULT_DELAY * 1000;
     }
 
+    /**
+     * Gets the delay asked for by the 'Retry-After' header of the last response.
+     *
+     * @return the delay in milliseconds, or -1 if the last response had no 'Retry-After' header.
+     */
+    public int retryAfterInMilliseconds() {
+        return this.retryTimeout;
+    }
+
     /**
      * @return the uri of the resource on which the LRO PUT or PATCH applied.
      */
@@ -365,9 +397,14 @@ public class PollingState<T> {
         if (resourcePending) {
             // Keep current behaviour for backward-compact
             return true;
-        } else {
-            return this.finalStateVia() == LongRunningFinalState.LOCATION;
+        } else if (this.finalStateVia() == LongRunningFinalState.LOCATION) {
+            if (resourceTrusted && resource() != null) {
+                this.finalGetSkipped = true;
+                return false;
+            }
+            return true;
         }
+        return false;
     }
 
     /**
@@ -452,9 +489,92 @@ public class PollingState<T> {
      */
     PollingState<T> withResource(T resource) {
         this.resource = resource;
+        this.unboundResource = null;
+        this.resourceTrusted = false;
+        return this;
+    }
+
+    /**
+     * Sets the resource from the body of an 'Azure-AsyncOperation' response of a PUT or PATCH
+     * operation. The body is only used if it is trusted as the final resource, see
+     * {@link #isTrustedFinalResource(PollingResponseBody)}, otherwise the resource is left null
+     * to be retrieved with a GET.
+     *
+     * @param body the response body
+     */
+    PollingState<T> withResourceFromOperationStatus(PollingResponseBody body) {
+        withResource(null);
+        if (isTrustedFinalResource(body)) {
+            try {
+                withResourceFrom(body);
+            } catch (IOException e) {
+                // Not the resource type, let the resource be retrieved
+                withResource(null);
+            }
+            this.finalGetSkipped = this.resource != null;
+        }
         return this;
     }
 
+    /**
+     * @return true if the final GET was skipped because the last response was trusted as the final resource.
+     */
+    boolean finalGetSkipped() {
+        return this.finalGetSkipped;
+    }
+
+    /**
+     * Checks whether the body of the last response is trusted as the final resource of a succeeded
+     * operation: the body must have been fetched from the URL the final state is read from, which is
+     * the resource of a PUT or PATCH and the location of a POST or DELETE, have the id of that URL,
+     * and not be the status of the operation.
+     *
+     * @param body the body of the last response
+     * @return true if the body is trusted as the final resource
+     */
+    private boolean isTrustedFinalResource(PollingResponseBody body) {
+        if (!trustLastResponse || !isStatusSucceeded() || body == null || body.isOperationStatus() || response == null) {
+            return false;
+        }
+        String finalStateUri = putOrPatchResourceUri != null ? putOrPatchResourceUri : locationHeaderLink();
+        return finalStateUri != null
+                && isSamePath(finalStateUri, response.raw().request().url().encodedPath())
+                && body.id() != null
+                && isSamePath(finalStateUri, body.id());
+    }
+
+    private static boolean isSamePath(String uri, String id) {
+        HttpUrl url = HttpUrl.parse(uri);
+        return trimTrailingSlash(url == null ? uri : url.encodedPath()).equalsIgnoreCase(trimTrailingSlash(id));
+    }
+
+    private static String trimTrailingSlash(String path) {
+        return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+
+    /**
+     * Sets the resource from a response body. It is bound right away if the status is
+     * terminal, and when asked for otherwise.
+     *
+     * @param body the response body, null if the response had none
+     * @throws IOException thrown by deserialization
+     */
+    PollingState<T> withResourceFrom(PollingResponseBody body) throws IOException {
+        this.resource = null;
+        this.unboundResource = body;
+        this.resourceTrusted = isTrustedFinalResource(body);
+        if (isStatusTerminal()) {
+            bindResource();
+        }
+        return this;
+    }
+
+    private void bindResource() throws IOException {
+        PollingResponseBody body = this.unboundResource;
+        this.unboundResource = null;
+        this.resource = body == null ? null : body.<T>bind(resourceType);
+    }
+
     /**
      * @return the resource type
      */
@@ -532,6 +652,13 @@ public class PollingState<T> {
         return this.initialHttpMethod;
     }
 
+    /**
+     * @return the url of the request that initiated the long running operation, null if unknown.
+     */
+    String initialUrl() {
+        return this.initialUrl;
+    }
+
     /**
      * If status is in failed state then throw CloudException.
      */
@@ -545,6 +672,13 @@ public class PollingState<T> {
         }
     }
 
+    /**
+     * Lazily creates the mapper shared by all polling states on first use.
+     */
+    private static final class MapperHolder {
+        private static final ObjectMapper MAPPER = initMapper(new ObjectMapper());
+    }
+
     /**
      * Initializes an object mapper.
      *
@@ -561,6 +695,7 @@ public class PollingState<T> {
                 .registerModule(new JodaModule())
                 .registerModule(ByteArraySerializer.getModule())
                 .registerModule(Base64UrlSerializer.getModule())
+                .registerModule(Base64UrlDeserializer.getModule())
                 .registerModule(DateTimeSerializer.getModule())
                 .registerModule(DateTimeRfc1123Serializer.getModule())
                 .registerModule(HeadersSerializer.getModule());
@@ -571,23 +706,4 @@ public class PollingState<T> {
                 .withIsGetterVisibility(JsonAutoDetect.Visibility.NONE));
         return mapper;
     }
-
-    /**
-     * An instance of this class describes the status of a long running operation
-     * and is returned from server each time.
-     */
-    private static class PollingResource {
-        /** Inner properties object. */
-        @JsonProperty(value = "properties")
-        private Properties properties;
-
-        /**
-         * Inner properties class.
-         */
-        private static class Properties {
-            /** The provisioning state of the resource. */
-            @JsonProperty(value = "provisioningState")
-            private String provisioningState;
-        }
-    }
-}
\ No newline at end of file
+}
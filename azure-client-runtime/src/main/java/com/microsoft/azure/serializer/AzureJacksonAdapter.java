@@ -15,6 +15,23 @@ import com.microsoft.rest.serializer.JacksonAdapter;
  * functionality useful for Azure operations.
  */
 public final class AzureJacksonAdapter extends JacksonAdapter implements SerializerAdapter<ObjectMapper> {
+    /**
+     * Gets the process-wide instance with the default mapper settings. Its mappers
+     * must not be reconfigured, see {@link JacksonAdapter#shared()}.
+     *
+     * @return the shared {@link AzureJacksonAdapter}
+     */
+    public static AzureJacksonAdapter shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Lazily creates the shared instance on first use.
+     */
+    private static final class SharedHolder {
+        private static final AzureJacksonAdapter INSTANCE = new AzureJacksonAdapter();
+    }
+
     /**
      * Creates an instance of the Azure flavored Jackson adapter.
      */
@@ -22,4 +39,15 @@ public final class AzureJacksonAdapter extends JacksonAdapter implements Seriali
         super();
         serializer().registerModule(CloudErrorDeserializer.getModule(simpleMapper()));
     }
+
+    /**
+     * Creates an instance of the Azure flavored Jackson adapter with the extra
+     * modules of a builder.
+     *
+     * @param builder the builder holding the extra modules
+     */
+    public AzureJacksonAdapter(JacksonAdapter.Builder builder) {
+        super(builder);
+        serializer().registerModule(CloudErrorDeserializer.getModule(simpleMapper()));
+    }
 }
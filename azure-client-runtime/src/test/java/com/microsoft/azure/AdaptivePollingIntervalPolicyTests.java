@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure;
+
+import com.microsoft.azure.MockLongRunningOperationServer.StatusScript;
+import com.microsoft.azure.serializer.AzureJacksonAdapter;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class AdaptivePollingIntervalPolicyTests {
+    private static final String VM_PATH = "subscriptions/sub/resourceGroups/rg/providers/Microsoft.Compute/virtualMachines/vm";
+    private static final String VM_URL = "http://localhost/subscriptions/sub/resourceGroups/%s/providers/Microsoft.Compute/virtualMachines/%s?api-version=2018-06-01";
+
+    @Test
+    public void backOffGrowsUpToMaximum() throws Exception {
+        AdaptivePollingIntervalPolicy policy = new AdaptivePollingIntervalPolicy()
+                .withMinDelayInMilliseconds(100)
+                .withMaxDelayInMilliseconds(1000)
+                .withJitter(0);
+        PollingState<Object> pollingState = pollingState("PUT", String.format(VM_URL, "rg", "vm"));
+        long[] expected = {100, 200, 400, 800, 1000, 1000};
+        for (int pollCount = 0; pollCount < expected.length; pollCount++) {
+            Assert.assertEquals(expected[pollCount], policy.delayInMilliseconds(pollingState, pollCount, 0));
+        }
+
+        policy.withJitter(0.5);
+        for (int pollCount = 0; pollCount < 100; pollCount++) {
+            long delay = policy.delayInMilliseconds(pollingState, pollCount % 6, 0);
+            Assert.assertTrue(String.valueOf(delay), delay >= 100 && delay <= 1000);
+        }
+    }
+
+    @Test
+    public void retryAfterIsHonoured() {
+        PollingState<Object> pollingState = PollingState.createFromJSONString("{\"retryTimeout\":5000}");
+        AdaptivePollingIntervalPolicy policy = new AdaptivePollingIntervalPolicy().withMaxDelayInMilliseconds(1000);
+        Assert.assertEquals(5000, policy.delayInMilliseconds(pollingState, 0, 0));
+        Assert.assertEquals(5000, policy.delayInMilliseconds(pollingState, 3, 0));
+    }
+
+    @Test
+    public void firstPollNearLearnedCompletionTime() throws Exception {
+        AdaptivePollingIntervalPolicy policy = new AdaptivePollingIntervalPolicy()
+                .withMinDelayInMilliseconds(100)
+                .withJitter(0)
+                .withLearnedCompletionTimes(0.5, 3);
+        Assert.assertEquals("PUT subscriptions/{}/resourcegroups/{}/providers/microsoft.compute/virtualmachines/{}",
+                AdaptivePollingIntervalPolicy.template(pollingState("PUT", String.format(VM_URL, "rg", "vm"))));
+
+        for (long elapsed : new long[] {300, 500, 400}) {
+            PollingState<Object> completed = pollingState("PUT", String.format(VM_URL, "rg", "vm" + elapsed));
+            completed.withStatus(AzureAsyncOperation.SUCCESS_STATUS, 200);
+            policy.onTerminal(completed, elapsed);
+            // failures are not learned
+            completed.withStatus(AzureAsyncOperation.FAILED_STATUS, 200);
+            policy.onTerminal(completed, 10);
+        }
+
+        PollingState<Object> pollingState = pollingState("PUT", String.format(VM_URL, "other-rg", "other-vm"));
+        Assert.assertEquals(350, policy.delayInMilliseconds(pollingState, 0, 50));
+        Assert.assertEquals(100, policy.delayInMilliseconds(pollingState, 1, 400));
+        Assert.assertEquals(200, policy.delayInMilliseconds(pollingState, 2, 500));
+        // other operations of the same resource type are learned separately
+        Assert.assertEquals(100, policy.delayInMilliseconds(pollingState("DELETE", String.format(VM_URL, "rg", "vm")), 0, 0));
+    }
+
+    @Test(timeout = 30000)
+    public void learningReducesPolls() throws Exception {
+        final long operationMillis = 400;
+        MockLongRunningOperationServer server = new MockLongRunningOperationServer(new StatusScript() {
+            @Override
+            String status(String resource, int poll, long elapsedMillis) {
+                return elapsedMillis >= operationMillis ? "Succeeded" : "InProgress";
+            }
+        });
+        AzureClient azureClient = server.newAzureClient();
+        azureClient.setPollingIntervalPolicy(new AdaptivePollingIntervalPolicy()
+                .withMinDelayInMilliseconds(50)
+                .withJitter(0)
+                .withLearnedCompletionTimes(0.5, 3));
+
+        int[] pollsPerOperation = new int[8];
+        for (int i = 0; i < pollsPerOperation.length; i++) {
+            server.resetPolls();
+            azureClient.getPutOrPatchResultAsync(server.putAsync(VM_PATH + i), Object.class).toBlocking().last();
+            pollsPerOperation[i] = server.polls();
+        }
+        // polls at 50, 150, 350 and 750 ms until learned, then near the completion time
+        Assert.assertTrue(pollsPerOperation[0] >= 3);
+        Assert.assertTrue(pollsPerOperation[pollsPerOperation.length - 1] <= 2);
+    }
+
+    private static PollingState<Object> pollingState(String method, String url) throws IOException {
+        okhttp3.Response raw = new okhttp3.Response.Builder()
+                .request(new Request.Builder().url(url).method(method, RequestBody.create(null, new byte[0])).build())
+                .code(202)
+                .message("Accepted")
+                .protocol(Protocol.HTTP_1_1)
+                .build();
+        return PollingState.create(retrofit2.Response.success(ResponseBody.create(MediaType.parse("application/json"), ""), raw),
+                LongRunningOperationOptions.DEFAULT, -1, Object.class, new AzureJacksonAdapter());
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure;
+
+import com.microsoft.azure.MockLongRunningOperationServer.StatusScript;
+import com.microsoft.rest.ServiceResponse;
+import org.junit.Assert;
+import org.junit.Test;
+import rx.Observable;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class AzureClientTests {
+    @Test(timeout = 10000)
+    public void unsubscribingStopsPolling() throws Exception {
+        MockLongRunningOperationServer server = new MockLongRunningOperationServer(StatusScript.always("InProgress"));
+        AzureClient azureClient = server.newAzureClient();
+        azureClient.setLongRunningOperationRetryTimeout(1);
+
+        // the poll timer must not block the subscribing thread
+        Observable<ServiceResponse<Object>> operation = azureClient.getPutOrPatchResultAsync(server.putAsync("resource"), Object.class);
+        Subscription subscription = operation.subscribe();
+        Assert.assertEquals(1, server.polls());
+
+        subscription.unsubscribe();
+        Thread.sleep(2500);
+        Assert.assertEquals(1, server.polls());
+    }
+
+    @Test(timeout = 20000)
+    public void pollerBoundsPollsInFlight() throws Exception {
+        final int operations = 40;
+        MockLongRunningOperationServer server = new MockLongRunningOperationServer(StatusScript.succeedingAtPoll(3))
+                .withPollLatency(20);
+        LongRunningOperationPoller poller = new LongRunningOperationPoller(4);
+        try {
+            AzureClient azureClient = server.newAzureClient();
+            azureClient.setLongRunningOperationRetryTimeout(0);
+            azureClient.setLongRunningOperationPoller(poller);
+
+            List<Observable<ServiceResponse<Object>>> results = new ArrayList<>();
+            for (int i = 0; i < operations; i++) {
+                results.add(azureClient.getPutOrPatchResultAsync(
+                        server.putAsync("resource/" + i).subscribeOn(Schedulers.io()), Object.class));
+            }
+            Assert.assertEquals(operations, Observable.merge(results).count().toBlocking().single().intValue());
+
+            Assert.assertTrue("max in flight " + server.maxPollsInFlight(), server.maxPollsInFlight() <= 4);
+            Assert.assertEquals(operations * 3, poller.pollCount());
+            Assert.assertEquals(0, poller.operationCount());
+            Assert.assertEquals(0, poller.pollsInFlight());
+            Assert.assertTrue(poller.averagePollLatencyMillis() > 0);
+        } finally {
+            poller.close();
+        }
+    }
+
+    @Test
+    public void operationStatusIsNotTrustedAsTheResource() throws Exception {
+        final String[] statusBody = new String[1];
+        MockLongRunningOperationServer server = new MockLongRunningOperationServer(new StatusScript() {
+            @Override
+            String status(String resource, int poll, long elapsedMillis) {
+                return "Succeeded";
+            }
+
+            @Override
+            String body(String resource, int poll, long elapsedMillis) {
+                return statusBody[0];
+            }
+        });
+        LongRunningOperationPoller poller = new LongRunningOperationPoller();
+        try {
+            AzureClient azureClient = server.newAzureClient();
+            azureClient.setLongRunningOperationPoller(poller);
+            LongRunningOperationOptions trusting = new LongRunningOperationOptions().withTrustLastResponse(true);
+
+            // a status document, even with the id of the resource
+            statusBody[0] = "{\"status\":\"Succeeded\",\"id\":\"/RESOURCE/\",\"name\":\"from-status\"}";
+            Object result = azureClient.getPutOrPatchResultAsync(server.putAsync("resource"), trusting, Object.class).toBlocking().last().body();
+            Assert.assertEquals("done", ((Map<?, ?>) result).get("name"));
+            Assert.assertEquals(1, server.resourceGets());
+
+            // a resource, but not fetched from the resource
+            statusBody[0] = "{\"status\":\"Succeeded\",\"id\":\"/resource\",\"name\":\"from-status\",\"properties\":{}}";
+            result = azureClient.getPutOrPatchResultAsync(server.putAsync("resource"), trusting, Object.class).toBlocking().last().body();
+            Assert.assertEquals("done", ((Map<?, ?>) result).get("name"));
+            Assert.assertEquals(2, server.resourceGets());
+
+            LongRunningOperationOptions location = new LongRunningOperationOptions()
+                    .withFinalStateVia(LongRunningFinalState.LOCATION)
+                    .withTrustLastResponse(true);
+            result = azureClient.getPostOrDeleteResultAsync(server.postAsync("resource"), location, Object.class).toBlocking().last().body();
+            Assert.assertEquals("done", ((Map<?, ?>) result).get("name"));
+            Assert.assertEquals(3, server.resourceGets());
+            Assert.assertEquals(0, poller.skippedFinalGetCount());
+        } finally {
+            poller.close();
+        }
+    }
+
+    @Test
+    public void trustedLastResponseSkipsFinalGet() throws Exception {
+        MockLongRunningOperationServer server = new MockLongRunningOperationServer(new StatusScript() {
+            @Override
+            String status(String resource, int poll, long elapsedMillis) {
+                return "Succeeded";
+            }
+
+            @Override
+            String body(String resource, int poll, long elapsedMillis) {
+                return "{\"status\":\"Succeeded\",\"id\":\"" + resource + "\",\"name\":\"from-status\",\"properties\":{}}";
+            }
+        }).withOperationStatusAtResource();
+        LongRunningOperationPoller poller = new LongRunningOperationPoller();
+        try {
+            AzureClient azureClient = server.newAzureClient();
+            azureClient.setLongRunningOperationPoller(poller);
+            LongRunningOperationOptions trusting = new LongRunningOperationOptions().withTrustLastResponse(true);
+
+            Object result = azureClient.getPutOrPatchResultAsync(server.putAsync("resource"), trusting, Object.class).toBlocking().last().body();
+            Assert.assertEquals("from-status", ((Map<?, ?>) result).get("name"));
+            Assert.assertEquals(1, server.resourceGets());
+            Assert.assertEquals(1, poller.skippedFinalGetCount());
+
+            // not trusted by default
+            azureClient.getPutOrPatchResultAsync(server.putAsync("resource"), Object.class).toBlocking().last();
+            Assert.assertEquals(3, server.resourceGets());
+
+            LongRunningOperationOptions location = new LongRunningOperationOptions()
+                    .withFinalStateVia(LongRunningFinalState.LOCATION)
+                    .withTrustLastResponse(true);
+            result = azureClient.getPostOrDeleteResultAsync(server.postAsync("resource"), location, Object.class).toBlocking().last().body();
+            Assert.assertEquals("from-status", ((Map<?, ?>) result).get("name"));
+            Assert.assertEquals(4, server.resourceGets());
+            Assert.assertEquals(2, poller.skippedFinalGetCount());
+        } finally {
+            poller.close();
+        }
+    }
+}
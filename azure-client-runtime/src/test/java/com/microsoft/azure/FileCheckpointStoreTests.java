@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure;
+
+import com.microsoft.azure.MockLongRunningOperationServer.StatusScript;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import rx.Subscription;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+public class FileCheckpointStoreTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void unfinishedStatesSurviveReopening() throws Exception {
+        File file = new File(folder.getRoot(), "lro.journal");
+        PollingState<Object> first = pollingState("http://localhost/operations/1");
+        PollingState<Object> second = pollingState("http://localhost/operations/2");
+        try (FileCheckpointStore store = new FileCheckpointStore(file)) {
+            store.save(first);
+            store.save(second);
+            store.flush();
+            store.remove(first);
+        }
+        // a record torn by a crash
+        Files.write(file.toPath(), "S torn {\"initialHttpMethod\":\"PU".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (FileCheckpointStore store = new FileCheckpointStore(file)) {
+            List<PollingState<?>> pollingStates = store.load();
+            Assert.assertEquals(1, pollingStates.size());
+            PollingState<?> loaded = pollingStates.get(0);
+            Assert.assertEquals(second.operationId(), loaded.operationId());
+            Assert.assertEquals("PUT", loaded.initialHttpMethod());
+            Assert.assertEquals("http://localhost/operations/2", loaded.azureAsyncOperationHeaderLink());
+            store.save(first);
+        }
+        try (FileCheckpointStore store = new FileCheckpointStore(file)) {
+            Assert.assertEquals(2, store.load().size());
+        }
+    }
+
+    @Test
+    public void journalIsCompacted() throws Exception {
+        File file = new File(folder.getRoot(), "lro.journal");
+        PollingState<Object> pollingState = pollingState("http://localhost/operations/1");
+        try (FileCheckpointStore store = new FileCheckpointStore(file)) {
+            for (int i = 0; i < 3000; i++) {
+                store.save(pollingState);
+                store.flush();
+            }
+        }
+        Assert.assertTrue(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size() < 1024);
+    }
+
+    @Test(timeout = 10000)
+    public void operationsAreResumedWithoutInitialRequest() throws Exception {
+        final String[] status = {"InProgress"};
+        MockLongRunningOperationServer server = new MockLongRunningOperationServer(new StatusScript() {
+            @Override
+            String status(String resource, int poll, long elapsedMillis) {
+                return status[0];
+            }
+        });
+        File file = new File(folder.getRoot(), "lro.journal");
+        try (FileCheckpointStore store = new FileCheckpointStore(file)) {
+            AzureClient azureClient = server.newAzureClient();
+            azureClient.setCheckpointStore(store);
+            Subscription subscription = azureClient.getPutOrPatchResultAsync(server.putAsync("resource"), Object.class).subscribe();
+            // the worker stops while the operation is in progress
+            subscription.unsubscribe();
+        }
+
+        status[0] = "Succeeded";
+        try (FileCheckpointStore store = new FileCheckpointStore(file)) {
+            AzureClient azureClient = server.newAzureClient();
+            azureClient.setCheckpointStore(store);
+            List<PollingState<?>> pollingStates = store.load();
+            Assert.assertEquals(1, pollingStates.size());
+            PollingState<?> resumed = azureClient.pollAsync(pollingStates.get(0), Object.class).toBlocking().last();
+            Assert.assertTrue(resumed.isStatusSucceeded());
+            Assert.assertEquals(0, store.load().size());
+        }
+        Assert.assertEquals(1, server.puts());
+        try (FileCheckpointStore store = new FileCheckpointStore(file)) {
+            Assert.assertEquals(0, store.load().size());
+        }
+    }
+
+    private static PollingState<Object> pollingState(String asyncOperationLink) {
+        return PollingState.createFromJSONString("{\"initialHttpMethod\":\"PUT\",\"status\":\"InProgress\",\"azureAsyncOperationHeaderLink\":\""
+                + asyncOperationLink + "\",\"putOrPatchResourceUri\":\"http://localhost/resource\"}");
+    }
+}
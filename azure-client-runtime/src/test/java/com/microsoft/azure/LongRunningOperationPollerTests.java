@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure;
+
+import com.microsoft.azure.serializer.AzureJacksonAdapter;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import org.junit.Assert;
+import org.junit.Test;
+import retrofit2.Response;
+import rx.Single;
+import rx.SingleSubscriber;
+import rx.functions.Action0;
+import rx.functions.Func0;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+import rx.subscriptions.Subscriptions;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class LongRunningOperationPollerTests {
+    @Test(expected = IllegalStateException.class)
+    public void sharedPollerCannotBeClosed() {
+        LongRunningOperationPoller.shared().close();
+    }
+
+    @Test
+    public void closingFailsWaitingAndNewOperations() throws Exception {
+        LongRunningOperationPoller poller = new LongRunningOperationPoller();
+        PollingState<Object> pollingState = inProgress();
+        TestSubscriber<PollingState<Object>> waiting = new TestSubscriber<>();
+        poller.poll(pollingState, delay(60000), pollOnce(pollingState)).subscribe(waiting);
+        Assert.assertEquals(1, poller.operationCount());
+
+        poller.close();
+        waiting.assertError(IllegalStateException.class);
+        Assert.assertEquals(0, poller.operationCount());
+
+        TestSubscriber<PollingState<Object>> late = new TestSubscriber<>();
+        poller.poll(pollingState, delay(0), pollOnce(pollingState)).subscribe(late);
+        late.assertError(IllegalStateException.class);
+        Assert.assertEquals(0, poller.operationCount());
+    }
+
+    @Test(timeout = 10000)
+    public void cancellingDuringTheFirstPollCancelsIt() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final AtomicBoolean pollCancelled = new AtomicBoolean();
+        final PollingState<Object> pollingState = inProgress();
+        final LongRunningOperationPoller poller = new LongRunningOperationPoller();
+        final TestSubscriber<PollingState<Object>> subscriber = new TestSubscriber<>();
+        // a synchronous poll, which only returns once it is cancelled
+        final Single<PollingState<Object>> blockingPoll = Single.create(new Single.OnSubscribe<PollingState<Object>>() {
+            @Override
+            public void call(SingleSubscriber<? super PollingState<Object>> pollSubscriber) {
+                pollSubscriber.add(Subscriptions.create(new Action0() {
+                    @Override
+                    public void call() {
+                        cancelled.countDown();
+                    }
+                }));
+                started.countDown();
+                try {
+                    pollCancelled.set(cancelled.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                poller.poll(pollingState, delay(0), new Func0<Single<PollingState<Object>>>() {
+                    @Override
+                    public Single<PollingState<Object>> call() {
+                        return blockingPoll;
+                    }
+                }).subscribe(subscriber);
+            }
+        });
+        try {
+            thread.start();
+            Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+            subscriber.unsubscribe();
+            thread.join();
+            Assert.assertTrue(pollCancelled.get());
+            Assert.assertEquals(0, poller.operationCount());
+            Assert.assertEquals(0, poller.pollsInFlight());
+        } finally {
+            poller.close();
+        }
+    }
+
+    @Test
+    public void wheelIsTickedOnlyWhileOperationsWait() throws Exception {
+        LongRunningOperationPoller poller = new LongRunningOperationPoller(1, 10, Schedulers.io());
+        try {
+            Assert.assertFalse(poller.isTicking());
+            PollingState<Object> pollingState = inProgress();
+            TestSubscriber<PollingState<Object>> subscriber = new TestSubscriber<>();
+            poller.poll(pollingState, delay(60000), pollOnce(pollingState)).subscribe(subscriber);
+            Assert.assertTrue(poller.isTicking());
+
+            subscriber.unsubscribe();
+            Assert.assertFalse(poller.isTicking());
+
+            subscriber = new TestSubscriber<>();
+            poller.poll(pollingState, delay(20), pollOnce(pollingState)).take(1).subscribe(subscriber);
+            Assert.assertTrue(poller.isTicking());
+            subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+            subscriber.assertValueCount(1);
+            // the poll took the operation out of the wheel
+            Assert.assertFalse(poller.isTicking());
+        } finally {
+            poller.close();
+        }
+    }
+
+    private static PollingState<Object> inProgress() throws Exception {
+        okhttp3.Response raw = new okhttp3.Response.Builder()
+                .request(new Request.Builder().url("http://localhost/resource").put(RequestBody.create(null, new byte[0])).build())
+                .code(202)
+                .message("Accepted")
+                .protocol(Protocol.HTTP_1_1)
+                .build();
+        return PollingState.create(Response.success(ResponseBody.create(MediaType.parse("application/json"), ""), raw),
+                LongRunningOperationOptions.DEFAULT, -1, Object.class, new AzureJacksonAdapter());
+    }
+
+    private static Func0<Single<PollingState<Object>>> pollOnce(final PollingState<Object> pollingState) {
+        return new Func0<Single<PollingState<Object>>>() {
+            @Override
+            public Single<PollingState<Object>> call() {
+                return Single.just(pollingState);
+            }
+        };
+    }
+
+    private static PollingIntervalPolicy delay(final long delayMillis) {
+        return new PollingIntervalPolicy() {
+            @Override
+            public long delayInMilliseconds(PollingState<?> pollingState, int polls, long elapsedMillis) {
+                return delayMillis;
+            }
+
+            @Override
+            public void onTerminal(PollingState<?> pollingState, long elapsedMillis) {
+            }
+        };
+    }
+}
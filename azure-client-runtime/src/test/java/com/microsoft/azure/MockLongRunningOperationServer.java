@@ -0,0 +1,278 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure;
+
+import com.microsoft.azure.serializer.AzureJacksonAdapter;
+import com.microsoft.rest.RestClient;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import retrofit2.http.POST;
+import retrofit2.http.PUT;
+import retrofit2.http.Path;
+import rx.Observable;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An in-process server of long running operations for the tests. A PUT or a POST of a
+ * resource is accepted with an Azure-AsyncOperation link to {@code /operation} followed by
+ * the path of the resource, the statuses returned by that link are given by a
+ * {@link StatusScript}, and a GET of the resource returns
+ * {@code {"id":"<path>","name":"done"}}. A POST is also given a Location link to the
+ * resource.
+ */
+final class MockLongRunningOperationServer {
+    private static final MediaType JSON = MediaType.parse("application/json");
+    private static final String OPERATION_PATH = "/operation";
+
+    private final StatusScript script;
+    private final RestClient restClient;
+    private final ConcurrentMap<String, Long> startTimes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> pollsByResource = new ConcurrentHashMap<>();
+    private final AtomicInteger puts = new AtomicInteger();
+    private final AtomicInteger polls = new AtomicInteger();
+    private final AtomicInteger resourceGets = new AtomicInteger();
+    private final AtomicInteger pollsInFlight = new AtomicInteger();
+    private final AtomicInteger maxPollsInFlight = new AtomicInteger();
+    private volatile long pollLatencyMillis;
+    private volatile boolean statusAtResource;
+
+    /**
+     * Creates a server.
+     *
+     * @param script the statuses of the operations
+     */
+    MockLongRunningOperationServer(StatusScript script) {
+        this.script = script;
+        this.restClient = new RestClient.Builder()
+                .withBaseUrl("http://localhost")
+                .withSerializerAdapter(new AzureJacksonAdapter())
+                .withResponseBuilderFactory(new AzureResponseBuilder.Factory())
+                .withInterceptor(new Interceptor() {
+                    @Override
+                    public Response intercept(Chain chain) throws IOException {
+                        return respond(chain.request());
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Sets how long each poll takes.
+     *
+     * @param pollLatencyMillis the duration of a poll in milliseconds
+     * @return the server
+     */
+    MockLongRunningOperationServer withPollLatency(long pollLatencyMillis) {
+        this.pollLatencyMillis = pollLatencyMillis;
+        return this;
+    }
+
+    /**
+     * Makes the Azure-AsyncOperation link the resource itself, so that the GETs of the
+     * resource return the statuses of the script.
+     *
+     * @return the server
+     */
+    MockLongRunningOperationServer withOperationStatusAtResource() {
+        this.statusAtResource = true;
+        return this;
+    }
+
+    /**
+     * @return a new Azure client sending its requests to the server
+     */
+    AzureClient newAzureClient() {
+        return new AzureClient(new AzureServiceClient(restClient) { });
+    }
+
+    /**
+     * Starts an operation with a PUT.
+     *
+     * @param path the path of the resource, without leading slash
+     * @return the initial response of the operation
+     */
+    Observable<retrofit2.Response<ResponseBody>> putAsync(String path) {
+        return restClient.retrofit().create(Service.class).putAsync(path);
+    }
+
+    /**
+     * Starts an operation with a POST.
+     *
+     * @param path the path of the resource, without leading slash
+     * @return the initial response of the operation
+     */
+    Observable<retrofit2.Response<ResponseBody>> postAsync(String path) {
+        return restClient.retrofit().create(Service.class).postAsync(path);
+    }
+
+    /**
+     * @return the number of operations started
+     */
+    int puts() {
+        return puts.get();
+    }
+
+    /**
+     * @return the number of polls of the operation statuses
+     */
+    int polls() {
+        return polls.get();
+    }
+
+    /**
+     * Resets the number of polls.
+     */
+    void resetPolls() {
+        polls.set(0);
+    }
+
+    /**
+     * @return the number of GETs of the resources
+     */
+    int resourceGets() {
+        return resourceGets.get();
+    }
+
+    /**
+     * @return the highest number of polls served at the same time
+     */
+    int maxPollsInFlight() {
+        return maxPollsInFlight.get();
+    }
+
+    private Response respond(Request request) throws IOException {
+        Response.Builder builder = new Response.Builder()
+                .request(request)
+                .message("OK")
+                .protocol(Protocol.HTTP_1_1);
+        String path = request.url().encodedPath();
+        if (request.method().equals("PUT") || request.method().equals("POST")) {
+            boolean post = request.method().equals("POST");
+            if (!post) {
+                puts.incrementAndGet();
+            }
+            startTimes.put(path, System.currentTimeMillis());
+            pollsByResource.put(path, new AtomicInteger());
+            builder.code(202).body(ResponseBody.create(JSON, "{}"));
+            if (post) {
+                builder.header("Location", "http://localhost" + path);
+            }
+            return builder.header("Azure-AsyncOperation", "http://localhost" + (statusAtResource ? "" : OPERATION_PATH) + path)
+                    .build();
+        }
+        String body;
+        if (path.startsWith(OPERATION_PATH + "/")) {
+            body = poll(path.substring(OPERATION_PATH.length()));
+        } else {
+            resourceGets.incrementAndGet();
+            body = statusAtResource ? poll(path) : "{\"id\":\"" + path + "\",\"name\":\"done\"}";
+        }
+        return builder.code(200)
+                .body(ResponseBody.create(JSON, body))
+                .build();
+    }
+
+    /**
+     * Serves a poll.
+     *
+     * @param resource the path of the resource the operation applies to
+     * @return the body of the poll
+     */
+    private String poll(String resource) throws IOException {
+        int current = pollsInFlight.incrementAndGet();
+        while (true) {
+            int max = maxPollsInFlight.get();
+            if (current <= max || maxPollsInFlight.compareAndSet(max, current)) {
+                break;
+            }
+        }
+        try {
+            if (pollLatencyMillis > 0) {
+                Thread.sleep(pollLatencyMillis);
+            }
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        } finally {
+            pollsInFlight.decrementAndGet();
+        }
+        polls.incrementAndGet();
+        Long startTime = startTimes.get(resource);
+        AtomicInteger resourcePolls = pollsByResource.get(resource);
+        int poll = resourcePolls == null ? 0 : resourcePolls.incrementAndGet();
+        long elapsedMillis = startTime == null ? 0 : System.currentTimeMillis() - startTime;
+        return script.body(resource, poll, elapsedMillis);
+    }
+
+    /**
+     * The statuses returned when polling the operations.
+     */
+    abstract static class StatusScript {
+        /**
+         * Gets the status of an operation.
+         *
+         * @param resource the path of the resource the operation applies to
+         * @param poll the number of the poll since the operation started, from 1
+         * @param elapsedMillis the time since the operation started
+         * @return the status
+         */
+        abstract String status(String resource, int poll, long elapsedMillis);
+
+        /**
+         * Gets the body returned when polling an operation.
+         *
+         * @param resource the path of the resource the operation applies to
+         * @param poll the number of the poll since the operation started, from 1
+         * @param elapsedMillis the time since the operation started
+         * @return the body, with the status only unless overridden
+         */
+        String body(String resource, int poll, long elapsedMillis) {
+            return "{\"status\":\"" + status(resource, poll, elapsedMillis) + "\"}";
+        }
+
+        /**
+         * @param status the status of every poll
+         * @return a script returning the same status
+         */
+        static StatusScript always(final String status) {
+            return new StatusScript() {
+                @Override
+                String status(String resource, int poll, long elapsedMillis) {
+                    return status;
+                }
+            };
+        }
+
+        /**
+         * @param polls the number of polls of each operation
+         * @return a script in which the operations succeed at the given poll
+         */
+        static StatusScript succeedingAtPoll(final int polls) {
+            return new StatusScript() {
+                @Override
+                String status(String resource, int poll, long elapsedMillis) {
+                    return poll < polls ? "InProgress" : "Succeeded";
+                }
+            };
+        }
+    }
+
+    private interface Service {
+        @PUT("{path}")
+        Observable<retrofit2.Response<ResponseBody>> putAsync(@Path(value = "path", encoded = true) String path);
+
+        @POST("{path}")
+        Observable<retrofit2.Response<ResponseBody>> postAsync(@Path(value = "path", encoded = true) String path);
+    }
+}
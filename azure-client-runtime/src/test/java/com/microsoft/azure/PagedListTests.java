@@ -6,17 +6,29 @@
 
 package com.microsoft.azure;
 
+import com.microsoft.azure.serializer.AzureJacksonAdapter;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import rx.Observable;
 import rx.functions.Action1;
 import rx.functions.Func0;
+import rx.functions.Func1;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class PagedListTests {
     private PagedList<Integer> list;
@@ -323,6 +335,228 @@ public class PagedListTests {
         Assert.assertEquals(19, obpl.loadNextPageCallCount);
     }
 
+    @Test
+    public void prefetchedPagesAreLoadedInOrder() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            list.withPrefetch(4, executor);
+            int j = 0;
+            for (int i : list) {
+                Assert.assertEquals(j++, i);
+            }
+            Assert.assertEquals(20, j);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void prefetchFailureIsThrownAtItsPage() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Assert.assertEquals(itemsBeforeFailure(failingList(5)), itemsBeforeFailure(failingList(5).withPrefetch(3, executor)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void abandonedIterationStopsPrefetching() {
+        final AtomicInteger fetches = new AtomicInteger();
+        PagedList<Integer> pagedList = new PagedList<Integer>(new TestPage(0, 21)) {
+            @Override
+            public Page<Integer> nextPage(String nextPageLink) {
+                fetches.incrementAndGet();
+                return new TestPage(Integer.parseInt(nextPageLink), 21);
+            }
+        };
+        Executor direct = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        pagedList.withPrefetch(3, direct);
+        // the page cached by the constructor and three more
+        Assert.assertEquals(4, fetches.get());
+        ListIterator<Integer> itr = pagedList.listIterator();
+        Assert.assertEquals(0, (int) itr.next());
+        Assert.assertEquals(1, (int) itr.next());
+        Assert.assertEquals(5, fetches.get());
+
+        pagedList.stopPrefetch();
+        Assert.assertEquals(2, (int) itr.next());
+        Assert.assertEquals(3, (int) itr.next());
+        // the pages fetched ahead are fetched again
+        Assert.assertEquals(7, fetches.get());
+    }
+
+    @Test
+    public void streamingDropsThePages() {
+        Assert.assertEquals(0, (int) list.get(0));
+        Assert.assertEquals(1, (int) list.get(1));
+        Iterable<Integer> stream = list.streaming();
+        int j = 0;
+        for (int i : stream) {
+            Assert.assertEquals(j++, i);
+            // the stream moves the current page along
+            Assert.assertEquals(i < 2 ? 1 : i, (int) list.currentPage().items().get(0));
+        }
+        Assert.assertEquals(20, j);
+        Assert.assertFalse(list.hasNextPage());
+        try {
+            stream.iterator();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // forward only
+        }
+        try {
+            list.size();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // the items are gone
+        }
+        try {
+            list.streaming();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // already streamed
+        }
+    }
+
+    @Test
+    public void streamingAndIterationDoNotMix() {
+        Iterator<Integer> itr = list.iterator();
+        Assert.assertEquals(0, (int) itr.next());
+        Iterator<Integer> stream = list.streaming().iterator();
+        Assert.assertEquals(0, (int) stream.next());
+        try {
+            itr.next();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // the list was streamed
+        }
+        Assert.assertEquals(1, (int) stream.next());
+    }
+
+    @Test
+    public void forEachPageStopsWhenAsked() {
+        final List<Integer> pageItems = new ArrayList<>();
+        list.forEachPage(new Func1<List<Integer>, ListOperationCallback.PagingBehavior>() {
+            @Override
+            public ListOperationCallback.PagingBehavior call(List<Integer> items) {
+                pageItems.addAll(items);
+                return pageItems.size() < 5 ? ListOperationCallback.PagingBehavior.CONTINUE : ListOperationCallback.PagingBehavior.STOP;
+            }
+        });
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4), pageItems);
+        Assert.assertTrue(list.hasNextPage());
+    }
+
+    @Test
+    public void listingIsResumedAtACursor() throws Exception {
+        int consumed = 0;
+        PagedList<Integer> failing = failingList(5);
+        try {
+            for (int i : failing) {
+                Assert.assertEquals(consumed++, i);
+            }
+            Assert.fail();
+        } catch (RuntimeException e) {
+            // the page after the one being consumed could not be fetched
+        }
+        PagedListCursor cursor = failing.cursor(consumed);
+        Assert.assertEquals(new PagedListCursor(Integer.toString(consumed), 0, false), cursor);
+        Assert.assertEquals(new PagedListCursor("3", 0, false), failing.cursor(3));
+        // the first page is returned by the listing request
+        Assert.assertEquals(new PagedListCursor(null, 0, false), failing.cursor(0));
+        Assert.assertFalse(failing.cursor(0).isResumable());
+
+        final List<String> fetched = new ArrayList<>();
+        PagedList<Integer> resumed = PagedList.fromCursor(cursor, new Func1<String, Page<Integer>>() {
+            @Override
+            public Page<Integer> call(String nextPageLink) {
+                fetched.add(nextPageLink);
+                return new TestPage(Integer.parseInt(nextPageLink), 21);
+            }
+        });
+        for (int i : resumed) {
+            Assert.assertEquals(consumed++, i);
+        }
+        Assert.assertEquals(20, consumed);
+        Assert.assertEquals("4", fetched.get(0));
+        Assert.assertEquals(cursor, resumed.cursor(0));
+
+        // the items before the offset are skipped
+        resumed = PagedList.fromCursor(new PagedListCursor("4", 1, false), new Func1<String, Page<Integer>>() {
+            @Override
+            public Page<Integer> call(String nextPageLink) {
+                return new TestPage(Integer.parseInt(nextPageLink), 21);
+            }
+        });
+        Assert.assertEquals(new PagedListCursor("5", 0, false), resumed.cursor(0));
+        Assert.assertEquals(5, (int) resumed.get(0));
+        Assert.assertTrue(resumed.cursor(resumed.size()).isCompleted());
+        Assert.assertTrue(PagedList.fromCursor(resumed.cursor(resumed.size()), new Func1<String, Page<Integer>>() {
+            @Override
+            public Page<Integer> call(String nextPageLink) {
+                throw new IllegalStateException();
+            }
+        }).isEmpty());
+    }
+
+    @Test
+    public void cursorsAreSerializable() throws Exception {
+        list.get(5);
+        PagedListCursor cursor = list.cursor(5);
+        Assert.assertEquals(new PagedListCursor("5", 0, false), cursor);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(cursor);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Assert.assertEquals(cursor, in.readObject());
+        }
+        AzureJacksonAdapter adapter = new AzureJacksonAdapter();
+        Assert.assertEquals(cursor, adapter.<PagedListCursor>deserialize(adapter.serialize(cursor), PagedListCursor.class));
+    }
+
+    @Test
+    public void streamedItemsHaveCursors() {
+        Iterator<Integer> stream = list.streaming().iterator();
+        for (int i = 0; i != 7; i++) {
+            stream.next();
+        }
+        Assert.assertEquals(new PagedListCursor("6", 0, false), list.cursor(6));
+        Assert.assertEquals(new PagedListCursor("7", 0, false), list.cursor(7));
+    }
+
+    private static PagedList<Integer> failingList(final int failingPage) {
+        return new PagedList<Integer>(new TestPage(0, 21)) {
+            @Override
+            public Page<Integer> nextPage(String nextPageLink) throws IOException {
+                int pageNum = Integer.parseInt(nextPageLink);
+                if (pageNum == failingPage) {
+                    throw new IOException("page " + pageNum);
+                }
+                return new TestPage(pageNum, 21);
+            }
+        };
+    }
+
+    private static int itemsBeforeFailure(PagedList<Integer> pagedList) {
+        int count = 0;
+        try {
+            for (int i : pagedList) {
+                Assert.assertEquals(count++, i);
+            }
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getCause() instanceof IOException);
+        }
+        return count;
+    }
 
     public static class TestPage implements Page<Integer> {
         private int page;
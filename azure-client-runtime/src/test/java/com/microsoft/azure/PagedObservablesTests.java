@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure;
+
+import com.microsoft.rest.ServiceResponse;
+import org.junit.Assert;
+import org.junit.Test;
+import rx.Observable;
+import rx.functions.Func0;
+import rx.functions.Func1;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PagedObservablesTests {
+    @Test
+    public void pagesAreFetchedOnDemand() {
+        AtomicInteger fetched = new AtomicInteger();
+        TestSubscriber<Page<Integer>> subscriber = new TestSubscriber<>(0);
+        PagedObservables.pages(page(0, fetched), next(fetched)).subscribe(subscriber);
+        Assert.assertEquals(0, fetched.get());
+
+        subscriber.requestMore(1);
+        Assert.assertEquals(1, fetched.get());
+        subscriber.assertValueCount(1);
+
+        subscriber.requestMore(2);
+        Assert.assertEquals(3, fetched.get());
+        subscriber.assertValueCount(3);
+        subscriber.assertNotCompleted();
+
+        subscriber.requestMore(Long.MAX_VALUE);
+        Assert.assertEquals(21, fetched.get());
+        subscriber.assertValueCount(21);
+        subscriber.assertCompleted();
+    }
+
+    @Test
+    public void itemsFetchAtMostOnePageAhead() {
+        AtomicInteger fetched = new AtomicInteger();
+        List<Integer> items = PagedObservables.items(page(0, fetched), next(fetched))
+                .take(3)
+                .toList()
+                .toBlocking()
+                .single();
+        Assert.assertEquals(3, items.size());
+        Assert.assertEquals(2, (int) items.get(2));
+        Assert.assertTrue(fetched.get() <= 4);
+    }
+
+    @Test
+    public void itemsOfAllPagesAreEmitted() {
+        AtomicInteger fetched = new AtomicInteger();
+        List<Integer> items = PagedObservables.items(page(0, fetched), next(fetched))
+                .toList()
+                .toBlocking()
+                .single();
+        Assert.assertEquals(20, items.size());
+        for (int i = 0; i != 20; i++) {
+            Assert.assertEquals(i, (int) items.get(i));
+        }
+    }
+
+    @Test
+    public void pagesOfAPagedListAreLoadedOnDemand() {
+        PagedList<Integer> pagedList = pagedList();
+        pagedList.loadNextPage();
+        TestSubscriber<List<Integer>> subscriber = new TestSubscriber<>(0);
+        PagedObservables.pages(pagedList).subscribe(subscriber);
+
+        subscriber.requestMore(2);
+        subscriber.assertValueCount(2);
+        // the items loaded before, then the next page
+        Assert.assertEquals(2, subscriber.getOnNextEvents().get(0).size());
+        Assert.assertEquals(2, (int) subscriber.getOnNextEvents().get(1).get(0));
+        Assert.assertEquals(2, (int) pagedList.currentPage().items().get(0));
+
+        subscriber.requestMore(Long.MAX_VALUE);
+        subscriber.assertValueCount(19);
+        subscriber.assertCompleted();
+        Assert.assertEquals(20, pagedList.size());
+    }
+
+    @Test(timeout = 10000)
+    public void pagesAreMappedInParallelAndInOrder() throws Exception {
+        final CountDownLatch bothMapping = new CountDownLatch(2);
+        final boolean[] overlapped = new boolean[1];
+        List<String> mapped = PagedObservables.parallelMap(pagedList(), new Func1<Integer, String>() {
+            @Override
+            public String call(Integer i) {
+                if (i == 1) {
+                    bothMapping.countDown();
+                    awaitQuietly(bothMapping);
+                } else if (i == 2) {
+                    bothMapping.countDown();
+                    overlapped[0] = awaitQuietly(bothMapping);
+                }
+                return "item" + i;
+            }
+        }, 4, Schedulers.io()).toList().toBlocking().single();
+
+        Assert.assertTrue(overlapped[0]);
+        Assert.assertEquals(20, mapped.size());
+        for (int i = 0; i != 20; i++) {
+            Assert.assertEquals("item" + i, mapped.get(i));
+        }
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static PagedList<Integer> pagedList() {
+        return new PagedList<Integer>(new PagedListTests.TestPage(0, 21)) {
+            @Override
+            public Page<Integer> nextPage(String nextPageLink) {
+                return new PagedListTests.TestPage(Integer.parseInt(nextPageLink), 21);
+            }
+        };
+    }
+
+    private static Func1<String, Observable<ServiceResponse<Page<Integer>>>> next(final AtomicInteger fetched) {
+        return new Func1<String, Observable<ServiceResponse<Page<Integer>>>>() {
+            @Override
+            public Observable<ServiceResponse<Page<Integer>>> call(String nextPageLink) {
+                return page(Integer.parseInt(nextPageLink), fetched);
+            }
+        };
+    }
+
+    private static Observable<ServiceResponse<Page<Integer>>> page(final int pageNum, final AtomicInteger fetched) {
+        return Observable.defer(new Func0<Observable<ServiceResponse<Page<Integer>>>>() {
+            @Override
+            public Observable<ServiceResponse<Page<Integer>>> call() {
+                fetched.incrementAndGet();
+                Page<Integer> page = new PagedListTests.TestPage(pageNum, 21);
+                return Observable.just(new ServiceResponse<>(page, null));
+            }
+        });
+    }
+}
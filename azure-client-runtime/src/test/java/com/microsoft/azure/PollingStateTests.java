@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.microsoft.azure.serializer.AzureJacksonAdapter;
+import com.microsoft.rest.serializer.JsonFlatten;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import org.junit.Assert;
+import org.junit.Test;
+import retrofit2.Response;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PollingStateTests {
+    @Test
+    public void intermediateResourceIsBoundWhenAskedFor() throws Exception {
+        String body = "{\"name\":\"vm\",\"properties\":{\"provisioningState\":\"Creating\",\"size\":1.10}}";
+        BigDecimal size = new AzureJacksonAdapter().<Resource>deserialize(body, Resource.class).size;
+        Resource.CREATED.set(0);
+        PollingState<Resource> pollingState = PollingState.create(
+                response(201, body), LongRunningOperationOptions.DEFAULT, -1, Resource.class, new AzureJacksonAdapter());
+        Assert.assertEquals("Creating", pollingState.status());
+        Assert.assertEquals(0, Resource.CREATED.get());
+        Assert.assertEquals("vm", pollingState.resource().name);
+        // bound like the adapter binds the body
+        Assert.assertEquals(size, pollingState.resource().size);
+        Assert.assertEquals(1, Resource.CREATED.get());
+
+        pollingState.updateFromResponseOnPutPatch(
+                response(200, "{\"name\":\"vm\",\"properties\":{\"provisioningState\":\"Succeeded\",\"status\":\"ignored\"}}"));
+        Assert.assertEquals(AzureAsyncOperation.SUCCESS_STATUS, pollingState.status());
+        // terminal resources are bound right away
+        Assert.assertEquals(2, Resource.CREATED.get());
+        Assert.assertEquals("vm", pollingState.resource().name);
+    }
+
+    @Test
+    public void untypedResourceIsBoundLikeTheAdapterBindsIt() throws Exception {
+        PollingState<Object> pollingState = PollingState.create(
+                response(200, "{\"x\":1.5}"), LongRunningOperationOptions.DEFAULT, -1, Object.class, new AzureJacksonAdapter());
+        Assert.assertEquals(Collections.singletonMap("x", 1.5), pollingState.resource());
+
+        AzureJacksonAdapter adapter = new AzureJacksonAdapter();
+        adapter.serializer().enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        pollingState = PollingState.create(
+                response(200, "{\"x\":1.5}"), LongRunningOperationOptions.DEFAULT, -1, Object.class, adapter);
+        Assert.assertEquals(Collections.singletonMap("x", new BigDecimal("1.5")), pollingState.resource());
+    }
+
+    @Test
+    public void terminalResponseWithoutBody() throws Exception {
+        PollingState<Resource> pollingState = PollingState.create(
+                response(200, ""), LongRunningOperationOptions.DEFAULT, -1, Resource.class, new AzureJacksonAdapter());
+        Assert.assertEquals(AzureAsyncOperation.SUCCESS_STATUS, pollingState.status());
+        Assert.assertNull(pollingState.resource());
+    }
+
+    @Test
+    public void asyncOperationStatusAndErrorAreScanned() throws Exception {
+        AzureAsyncOperation asyncOperation = AzureAsyncOperation.fromResponse(new AzureJacksonAdapter(),
+                response(200, "{\"properties\":{\"status\":\"nested\"},\"status\":\"Failed\",\"error\":{\"code\":\"Conflict\",\"message\":\"boom\"}}"));
+        Assert.assertEquals("Failed", asyncOperation.status());
+        Assert.assertEquals("Conflict", asyncOperation.getError().code());
+        Assert.assertEquals("boom", asyncOperation.getError().message());
+
+        asyncOperation = AzureAsyncOperation.fromResponse(new AzureJacksonAdapter(), response(200, "{\"status\":\"InProgress\"}"));
+        Assert.assertEquals("InProgress", asyncOperation.status());
+        Assert.assertNull(asyncOperation.getError());
+
+        try {
+            AzureAsyncOperation.fromResponse(new AzureJacksonAdapter(), response(200, "{\"properties\":{\"status\":\"nested\"}}"));
+            Assert.fail();
+        } catch (CloudException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().endsWith("{\"properties\":{\"status\":\"nested\"}}"));
+        }
+
+        try {
+            AzureAsyncOperation.fromResponse(new AzureJacksonAdapter(), response(200, "<html>Bad Gateway</html>"));
+            Assert.fail();
+        } catch (CloudException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().endsWith("<html>Bad Gateway</html>"));
+        }
+    }
+
+    private static Response<ResponseBody> response(int code, String body) {
+        okhttp3.Response raw = new okhttp3.Response.Builder()
+                .request(new Request.Builder().url("http://localhost/resource").put(RequestBody.create(null, new byte[0])).build())
+                .code(code)
+                .message("OK")
+                .protocol(Protocol.HTTP_1_1)
+                .build();
+        return Response.success(ResponseBody.create(MediaType.parse("application/json"), body), raw);
+    }
+
+    @JsonFlatten
+    private static class Resource {
+        private static final AtomicInteger CREATED = new AtomicInteger();
+
+        private String name;
+        @JsonProperty("properties.size")
+        private BigDecimal size;
+
+        Resource() {
+            CREATED.incrementAndGet();
+        }
+    }
+}
@@ -6,18 +6,34 @@
 
 package com.microsoft.rest;
 
-import com.google.common.io.BaseEncoding;
+import com.fasterxml.jackson.core.Base64Variant;
+import com.microsoft.rest.serializer.Base64UrlSerializer;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 /**
  * Simple wrapper over Base64Url encoded byte array used during serialization/deserialization.
+ * Either the encoded or the decoded form is kept and the other one is computed when first
+ * asked for, so serializing bytes or deserializing into bytes never goes through a String.
  */
 public final class Base64Url {
+    private static final Base64Variant VARIANT = Base64UrlSerializer.BASE64_URL;
+
     /**
      * The Base64Url encoded bytes.
      */
-    private final byte[] bytes;
+    private volatile byte[] bytes;
+
+    /**
+     * The decoded bytes.
+     */
+    private volatile byte[] decodedBytes;
+
+    /**
+     * Whether the instance was created from decoded bytes rather than encoded ones.
+     */
+    private final boolean fromDecodedBytes;
 
     /**
      * Creates a new Base64Url object with the specified encoded string.
@@ -25,34 +41,59 @@ public final class Base64Url {
      * @param string The encoded string.
      */
     private Base64Url(String string) {
+        this.fromDecodedBytes = false;
         if (string == null) {
             this.bytes = null;
         } else {
-            this.bytes = string.getBytes();
+            this.bytes = string.getBytes(StandardCharsets.US_ASCII);
         }
     }
 
+    private Base64Url(byte[] decodedBytes) {
+        this.decodedBytes = decodedBytes;
+        this.fromDecodedBytes = true;
+    }
+
     /**
-     * Encode a byte array into Base64Url encoded bytes.
+     * Encode a byte array into Base64Url encoded bytes. The array is copied, and
+     * is encoded only when the encoded form is asked for.
      *
      * @param bytes The byte array to encode.
      * @return a Base64Url instance
      */
     public static Base64Url encode(byte[] bytes) {
         if (bytes == null) {
-            return new Base64Url(null);
+            return new Base64Url((String) null);
         } else {
-            return new Base64Url(BaseEncoding.base64Url().omitPadding().encode(bytes));
+            return new Base64Url(bytes.clone());
         }
     }
 
+    /**
+     * Wraps Base64Url encoded bytes, with or without padding. The array is not copied
+     * and is decoded only when the decoded form is asked for.
+     *
+     * @param encodedBytes The encoded bytes.
+     * @return a Base64Url instance
+     */
+    public static Base64Url fromEncodedBytes(byte[] encodedBytes) {
+        Base64Url base64Url = new Base64Url((String) null);
+        base64Url.bytes = encodedBytes;
+        return base64Url;
+    }
+
     /**
      * Returns the underlying encoded byte array.
      *
      * @return The underlying encoded byte array.
      */
     public byte[] encodedBytes() {
-        return bytes;
+        byte[] encoded = this.bytes;
+        if (encoded == null && this.decodedBytes != null) {
+            encoded = encode(this.decodedBytes, VARIANT);
+            this.bytes = encoded;
+        }
+        return encoded;
     }
 
     /**
@@ -61,20 +102,84 @@ public final class Base64Url {
      * @return The decoded byte array.
      */
     public byte[] decodedBytes() {
-        if (this.bytes == null) {
-            return null;
+        byte[] decoded = this.decodedBytes;
+        if (decoded == null && this.bytes != null) {
+            decoded = decode(this.bytes, VARIANT);
+            this.decodedBytes = decoded;
+        }
+        return decoded == null ? null : decoded.clone();
+    }
+
+    /**
+     * Gets whether the instance was created from decoded bytes with {@link #encode(byte[])},
+     * rather than from encoded bytes, which are then kept as they are.
+     *
+     * @return true if the instance was created from decoded bytes
+     */
+    public boolean isFromDecodedBytes() {
+        return fromDecodedBytes;
+    }
+
+    private static byte[] encode(byte[] decoded, Base64Variant variant) {
+        byte[] encoded = new byte[(decoded.length * 4 + 2) / 3];
+        int chunks = decoded.length / 3 * 3;
+        int ptr = 0;
+        for (int i = 0; i < chunks; i += 3) {
+            int bits = ((decoded[i] & 0xFF) << 16) | ((decoded[i + 1] & 0xFF) << 8) | (decoded[i + 2] & 0xFF);
+            ptr = variant.encodeBase64Chunk(bits, encoded, ptr);
+        }
+        int remaining = decoded.length - chunks;
+        if (remaining > 0) {
+            int bits = (decoded[chunks] & 0xFF) << 16;
+            if (remaining == 2) {
+                bits |= (decoded[chunks + 1] & 0xFF) << 8;
+            }
+            variant.encodeBase64Partial(bits, remaining, encoded, ptr);
+        }
+        return encoded;
+    }
+
+    private static byte[] decode(byte[] encoded, Base64Variant variant) {
+        int length = encoded.length;
+        while (length > 0 && variant.usesPaddingChar(encoded[length - 1])) {
+            length--;
+        }
+        if (length % 4 == 1) {
+            throw new IllegalArgumentException("Invalid Base64Url input length " + length);
+        }
+        byte[] decoded = new byte[length * 3 / 4];
+        int ptr = 0;
+        int bits = 0;
+        for (int i = 0; i < length; i++) {
+            int value = variant.decodeBase64Byte(encoded[i]);
+            if (value < 0) {
+                throw new IllegalArgumentException("Invalid Base64Url character '" + (char) encoded[i] + "' at index " + i);
+            }
+            bits = (bits << 6) | value;
+            if ((i & 3) == 3) {
+                decoded[ptr++] = (byte) (bits >> 16);
+                decoded[ptr++] = (byte) (bits >> 8);
+                decoded[ptr++] = (byte) bits;
+                bits = 0;
+            }
+        }
+        if ((length & 3) == 2) {
+            decoded[ptr] = (byte) (bits >> 4);
+        } else if ((length & 3) == 3) {
+            decoded[ptr++] = (byte) (bits >> 10);
+            decoded[ptr] = (byte) (bits >> 2);
         }
-        return BaseEncoding.base64Url().decode(new String(bytes));
+        return decoded;
     }
 
     @Override
     public String toString() {
-        return new String(bytes);
+        return new String(encodedBytes(), StandardCharsets.US_ASCII);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(bytes);
+        return Arrays.hashCode(encodedBytes());
     }
 
     @Override
@@ -88,6 +193,6 @@ public final class Base64Url {
         }
 
         Base64Url rhs = (Base64Url) obj;
-        return Arrays.equals(this.bytes, rhs.encodedBytes());
+        return Arrays.equals(this.encodedBytes(), rhs.encodedBytes());
     }
-}
\ No newline at end of file
+}
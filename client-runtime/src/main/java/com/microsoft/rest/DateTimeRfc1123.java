@@ -6,6 +6,7 @@
 
 package com.microsoft.rest;
 
+import com.microsoft.rest.serializer.DateTimeCodec;
 import org.joda.time.DateTime;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
@@ -39,7 +40,8 @@ public final class DateTimeRfc1123 {
      * @param formattedString The datetime string in RFC1123 format
      */
     public DateTimeRfc1123(String formattedString) {
-        this.dateTime = DateTime.parse(formattedString, RFC1123_DATE_TIME_FORMATTER);
+        DateTime parsed = DateTimeCodec.parseRfc1123(formattedString);
+        this.dateTime = parsed != null ? parsed : DateTime.parse(formattedString, RFC1123_DATE_TIME_FORMATTER);
     }
 
     /**
@@ -55,7 +57,8 @@ public final class DateTimeRfc1123 {
 
     @Override
     public String toString() {
-        return RFC1123_DATE_TIME_FORMATTER.print(this.dateTime);
+        String formatted = DateTimeCodec.formatRfc1123(this.dateTime);
+        return formatted != null ? formatted : RFC1123_DATE_TIME_FORMATTER.print(this.dateTime);
     }
 
     @Override
@@ -6,9 +6,9 @@
 
 package com.microsoft.rest;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import com.fasterxml.jackson.annotation.JsonValue;
@@ -18,27 +18,28 @@ import com.fasterxml.jackson.annotation.JsonValue;
  * @param <T> a specific expandable enum type
  */
 public abstract class ExpandableStringEnum<T extends ExpandableStringEnum<T>> {
-    private static ConcurrentMap<String, ? extends ExpandableStringEnum<?>> valuesByName = null;
+    /**
+     * The values of each subclass, looked up without allocating for names spelled
+     * like they were registered.
+     */
+    private static final ClassValue<Registry> REGISTRIES = new ClassValue<Registry>() {
+        @Override
+        protected Registry computeValue(Class<?> type) {
+            return new Registry();
+        }
+    };
 
     private String name;
     private Class<T> clazz;
 
-    private static String uniqueKey(Class<?> clazz, String name) {
-        if (clazz != null) {
-            return (clazz.getName() + "#" + name).toLowerCase();
-        } else {
-            throw new IllegalArgumentException();
-        }
-    }
-
     @SuppressWarnings("unchecked")
     protected T withNameValue(String name, T value, Class<T> clazz) {
-        if (valuesByName == null) {
-            valuesByName = new ConcurrentHashMap<String, T>();
+        if (clazz == null) {
+            throw new IllegalArgumentException();
         }
         this.name = name;
         this.clazz = clazz;
-        ((ConcurrentMap<String, T>) valuesByName).put(uniqueKey(clazz, name), value);
+        REGISTRIES.get(clazz).register(name, value);
         return (T) this;
     }
 
@@ -46,16 +47,20 @@ public abstract class ExpandableStringEnum<T extends ExpandableStringEnum<T>> {
     protected static <T extends ExpandableStringEnum<T>> T fromString(String name, Class<T> clazz) {
         if (name == null) {
             return null;
-        } else if (valuesByName != null) {
-            T value = (T) valuesByName.get(uniqueKey(clazz, name));
-            if (value != null) {
-                return value;
-            }
+        } else if (clazz == null) {
+            throw new IllegalArgumentException();
+        }
+        Registry registry = REGISTRIES.get(clazz);
+        T value = (T) registry.get(name);
+        if (value != null) {
+            return value;
         }
 
         try {
-            T value = clazz.newInstance();
-            return value.withNameValue(name, value, clazz);
+            value = clazz.newInstance();
+            value.withNameValue(name, value, clazz);
+            // another thread may have registered the same name first
+            return (T) registry.get(name);
         } catch (InstantiationException e) {
             return null;
         } catch (IllegalAccessException e) {
@@ -65,17 +70,7 @@ public abstract class ExpandableStringEnum<T extends ExpandableStringEnum<T>> {
 
     @SuppressWarnings("unchecked")
     protected static <T extends ExpandableStringEnum<T>> Collection<T> values(Class<T> clazz) {
-        // Make a copy of all values
-        Collection<? extends ExpandableStringEnum<?>> values = new ArrayList<>(valuesByName.values());
-
-        Collection<T> list = new HashSet<T>();
-        for (ExpandableStringEnum<?> value : values) {
-            if (value.getClass().isAssignableFrom(clazz)) {
-                list.add((T) value);
-            }
-        }
-
-        return list;
+        return new HashSet<T>((Collection<T>) REGISTRIES.get(clazz).values());
     }
 
     @Override
@@ -86,7 +81,7 @@ public abstract class ExpandableStringEnum<T extends ExpandableStringEnum<T>> {
 
     @Override
     public int hashCode() {
-        return uniqueKey(this.clazz, this.name).hashCode();
+        return 31 * this.clazz.getName().hashCode() + (this.name == null ? 0 : this.name.hashCode());
     }
 
     @SuppressWarnings("unchecked")
@@ -102,4 +97,39 @@ public abstract class ExpandableStringEnum<T extends ExpandableStringEnum<T>> {
             return this.name.equals(((ExpandableStringEnum<T>) obj).name);
         }
     }
+
+    /**
+     * Case-insensitive registry of the values of one subclass. The first value
+     * registered for a name wins.
+     */
+    private static final class Registry {
+        /**
+         * Upper bound for the names cached with the spelling they were looked up with.
+         */
+        private static final int MAX_ALIASES = 1024;
+
+        private final ConcurrentMap<String, ExpandableStringEnum<?>> byLowerCaseName = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, ExpandableStringEnum<?>> byName = new ConcurrentHashMap<>();
+
+        ExpandableStringEnum<?> get(String name) {
+            ExpandableStringEnum<?> value = byName.get(name);
+            if (value == null) {
+                value = byLowerCaseName.get(name.toLowerCase(Locale.ROOT));
+                if (value != null && byName.size() < MAX_ALIASES) {
+                    byName.putIfAbsent(name, value);
+                }
+            }
+            return value;
+        }
+
+        void register(String name, ExpandableStringEnum<?> value) {
+            if (name != null && byLowerCaseName.putIfAbsent(name.toLowerCase(Locale.ROOT), value) == null) {
+                byName.putIfAbsent(name, value);
+            }
+        }
+
+        Collection<ExpandableStringEnum<?>> values() {
+            return byLowerCaseName.values();
+        }
+    }
 }
@@ -10,9 +10,12 @@ import com.microsoft.azure.management.apigeneration.Beta;
 import com.microsoft.azure.management.apigeneration.Beta.SinceVersion;
 import com.microsoft.rest.credentials.ServiceClientCredentials;
 import com.microsoft.rest.interceptors.BaseUrlHandler;
+import com.microsoft.rest.interceptors.CompositeHeadersInterceptor;
 import com.microsoft.rest.interceptors.CustomHeadersInterceptor;
 import com.microsoft.rest.interceptors.LoggingInterceptor;
+import com.microsoft.rest.interceptors.RequestCoalescingInterceptor;
 import com.microsoft.rest.interceptors.RequestIdHeaderInterceptor;
+import com.microsoft.rest.interceptors.ShutdownInterceptor;
 import com.microsoft.rest.interceptors.UserAgentInterceptor;
 import com.microsoft.rest.protocol.Environment;
 import com.microsoft.rest.protocol.ResponseBuilder;
@@ -20,20 +23,32 @@ import com.microsoft.rest.protocol.SerializerAdapter;
 import com.microsoft.rest.retry.RetryHandler;
 import com.microsoft.rest.retry.RetryStrategy;
 import okhttp3.Authenticator;
+import okhttp3.Call;
 import okhttp3.ConnectionPool;
+import okhttp3.CookieJar;
 import okhttp3.Dispatcher;
 import okhttp3.Interceptor;
 import okhttp3.JavaNetCookieJar;
 import okhttp3.OkHttpClient;
+import okhttp3.Request;
 import okio.AsyncTimeout;
 import retrofit2.Retrofit;
 import retrofit2.adapter.rxjava.RxJavaCallAdapterFactory;
+import rx.schedulers.Schedulers;
 
 import java.net.CookieManager;
 import java.net.CookiePolicy;
 import java.net.Proxy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * An instance of this class stores the client information for making REST calls.
@@ -45,6 +60,12 @@ public final class RestClient {
     private final Retrofit retrofit;
     /** The original builder for this rest client. */
     private final RestClient.Builder builder;
+    /** The resource group sharing the transport resources, or null if the client owns them. */
+    private final RestClientResourceGroup resourceGroup;
+    /** If the client has been closed. */
+    private final AtomicBoolean closed = new AtomicBoolean();
+    /** The interceptor keeping track of the calls in flight. */
+    private final ShutdownInterceptor shutdownInterceptor;
 
     private RestClient(OkHttpClient httpClient,
                        Retrofit retrofit,
@@ -52,6 +73,18 @@ public final class RestClient {
         this.httpClient = httpClient;
         this.retrofit = retrofit;
         this.builder = builder;
+        this.resourceGroup = builder.resourceGroup;
+        ShutdownInterceptor shutdownInterceptor = null;
+        for (Interceptor interceptor : httpClient.interceptors()) {
+            if (interceptor instanceof ShutdownInterceptor) {
+                shutdownInterceptor = (ShutdownInterceptor) interceptor;
+                break;
+            }
+        }
+        this.shutdownInterceptor = shutdownInterceptor;
+        if (resourceGroup != null) {
+            resourceGroup.acquire();
+        }
     }
 
     /**
@@ -113,6 +146,13 @@ public final class RestClient {
         return this;
     }
 
+    /**
+     * @return the resource group sharing the transport resources, or null if the client owns them
+     */
+    public RestClientResourceGroup resourceGroup() {
+        return resourceGroup;
+    }
+
     /**
      * Create a new builder for a new Rest Client with the same configurations on this one.
      * @return a RestClient builder
@@ -123,10 +163,17 @@ public final class RestClient {
 
     /**
      * Closes the HTTP client and recycles the resources associated. The threads will
-     * be recycled after 60 seconds of inactivity.
+     * be recycled after 60 seconds of inactivity. If the client was built with a
+     * {@link RestClientResourceGroup}, the shared resources are left to the group.
      */
     @Beta(SinceVersion.V1_1_0)
     public void close() {
+        if (resourceGroup != null) {
+            if (closed.compareAndSet(false, true)) {
+                resourceGroup.release();
+            }
+            return;
+        }
         httpClient.dispatcher().executorService().shutdown();
         httpClient.connectionPool().evictAll();
         synchronized (httpClient.connectionPool()) {
@@ -139,14 +186,56 @@ public final class RestClient {
 
     /**
      * Closes the HTTP client, recycles the resources associated, and waits
-     * for 60 seconds for all the threads to be recycled.
+     * up to 60 seconds for the calls in flight to complete and the threads to
+     * be recycled.
      *
-     * @throws InterruptedException thrown when the 60-sec wait is interrupted
+     * @throws InterruptedException thrown when the wait is interrupted
      */
     @Beta(SinceVersion.V1_1_0)
     public void closeAndWait() throws InterruptedException {
-        close();
-        Thread.sleep(60000);
+        shutdown(60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Shuts down the client gracefully. New calls are rejected, the calls in flight
+     * are given until the timeout to complete and are cancelled afterwards, then the
+     * pooled connections are evicted and the thread pool is terminated. If the client
+     * was built with a {@link RestClientResourceGroup}, the shared resources are left
+     * to the group.
+     *
+     * @param timeout the maximum time to wait for the calls in flight
+     * @param unit the time unit of the timeout argument
+     * @return a summary of the shutdown, including the calls cancelled
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Beta(SinceVersion.V1_2_0)
+    public ShutdownSummary shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + unit.toNanos(timeout);
+        shutdownInterceptor.shutdown();
+        List<Request> cancelled = new ArrayList<>();
+        if (!shutdownInterceptor.awaitIdle(timeout, unit)) {
+            cancelled.addAll(shutdownInterceptor.cancelAll());
+        }
+        if (resourceGroup != null) {
+            if (closed.compareAndSet(false, true)) {
+                resourceGroup.release();
+            }
+        } else {
+            // calls still queued in the dispatcher would be rejected by the interceptor anyway
+            for (Call call : httpClient.dispatcher().queuedCalls()) {
+                call.cancel();
+                cancelled.add(call.request());
+            }
+            ExecutorService executorService = httpClient.dispatcher().executorService();
+            executorService.shutdown();
+            httpClient.connectionPool().evictAll();
+            if (!executorService.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                executorService.shutdownNow();
+            }
+            closed.set(true);
+        }
+        return new ShutdownSummary(cancelled, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
     }
 
     /**
@@ -181,6 +270,14 @@ public final class RestClient {
         private boolean useHttpClientThreadPool;
         /** The connection pool in use for OkHttp. */
         private ConnectionPool connectionPool;
+        /** If set to true, concurrent identical GET requests will share a single network call. */
+        private boolean useRequestCoalescing;
+        /** If set to true, the default header interceptors are replaced by a single one and cookies are disabled. */
+        private boolean useLeanInterceptorChain;
+        /** The resource group sharing the transport resources. */
+        private RestClientResourceGroup resourceGroup;
+        /** The factory for the threads executing HTTP requests and Rx subscriptions. */
+        private ThreadFactory threadFactory;
 
         /**
          * Creates an instance of the builder with a base URL to the service.
@@ -199,6 +296,10 @@ public final class RestClient {
             this.responseBuilderFactory = restClient.builder.responseBuilderFactory;
             this.serializerAdapter = restClient.builder.serializerAdapter;
             this.useHttpClientThreadPool = restClient.builder.useHttpClientThreadPool;
+            this.useRequestCoalescing = restClient.builder.useRequestCoalescing;
+            this.useLeanInterceptorChain = restClient.builder.useLeanInterceptorChain;
+            this.resourceGroup = restClient.builder.resourceGroup;
+            this.threadFactory = restClient.builder.threadFactory;
             if (restClient.builder.credentials != null) {
                 this.credentials = restClient.builder.credentials;
             }
@@ -212,7 +313,18 @@ public final class RestClient {
                     this.retryStrategy = ((RetryHandler) interceptor).strategy();
                 } else if (interceptor instanceof CustomHeadersInterceptor) {
                     this.customHeadersInterceptor = new CustomHeadersInterceptor();
-                    this.customHeadersInterceptor.addHeaderMultimap(((CustomHeadersInterceptor) interceptor).headers());
+                    this.customHeadersInterceptor.addHeaderMultimap(((CustomHeadersInterceptor) interceptor).headersCopy());
+                } else if (interceptor instanceof RequestCoalescingInterceptor
+                        || interceptor instanceof ShutdownInterceptor) {
+                    continue;
+                } else if (interceptor instanceof CompositeHeadersInterceptor) {
+                    CompositeHeadersInterceptor composite = (CompositeHeadersInterceptor) interceptor;
+                    this.userAgent = composite.userAgent();
+                    this.customHeadersInterceptor = new CustomHeadersInterceptor();
+                    this.customHeadersInterceptor.addHeaderMultimap(composite.customHeadersInterceptor().headersCopy());
+                    // restore the default pipeline, which is collapsed again in build() if still lean
+                    this.withInterceptor(new RequestIdHeaderInterceptor());
+                    this.withInterceptor(new BaseUrlHandler());
                 } else if (interceptor != restClient.builder.credentialsInterceptor) {
                     this.withInterceptor(interceptor);
                 }
@@ -425,6 +537,31 @@ public final class RestClient {
             return this;
         }
 
+        /**
+         * Sets whether concurrent identical GET requests should share a single network call.
+         * Requests are identical when they have the same URL, credentials and headers. A single
+         * request can opt out by setting header 'x-ms-request-coalescing: false'. Default is false.
+         * @param useRequestCoalescing whether to coalesce identical in-flight GET requests
+         * @return the builder itself for chaining
+         */
+        public Builder useRequestCoalescing(boolean useRequestCoalescing) {
+            this.useRequestCoalescing = useRequestCoalescing;
+            return this;
+        }
+
+        /**
+         * Sets whether to use a lean interceptor chain. If set to true, the request id, dynamic
+         * base URL, user agent and custom headers are applied by a single interceptor at the
+         * beginning of the pipeline, with one request rebuild per call, and cookies are
+         * not stored. Default is false.
+         * @param useLeanInterceptorChain whether to use the lean interceptor chain
+         * @return the builder itself for chaining
+         */
+        public Builder useLeanInterceptorChain(boolean useLeanInterceptorChain) {
+            this.useLeanInterceptorChain = useLeanInterceptorChain;
+            return this;
+        }
+
         /**
          * Sets the dispatcher used in OkHttp client. This is also where to set
          * the thread pool for executing HTTP requests.
@@ -436,6 +573,34 @@ public final class RestClient {
             return this;
         }
 
+        /**
+         * Sets the factory for the threads executing HTTP requests. Unless the HTTP
+         * client thread pool is used, REST calls are also subscribed on these threads.
+         * On Java 21 and later, pass {@code Thread.ofVirtual().factory()} to run the
+         * blocking calls on virtual threads. Ignored if a dispatcher or a resource
+         * group is set.
+         *
+         * @param threadFactory the factory for the threads
+         * @return the builder itself for chaining
+         */
+        public Builder withThreadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        /**
+         * Sets the resource group whose dispatcher, connection pool, callback executor
+         * and Rx scheduler are shared with other REST clients. The resources set on the
+         * group take precedence over the ones set on this builder.
+         *
+         * @param resourceGroup the resource group to use
+         * @return the builder itself for chaining
+         */
+        public Builder withResourceGroup(RestClientResourceGroup resourceGroup) {
+            this.resourceGroup = resourceGroup;
+            return this;
+        }
+
         /**
          * Sets the executor for async callbacks to run on.
          *
@@ -518,16 +683,49 @@ public final class RestClient {
                 retryHandler = new RetryHandler(retryStrategy);
             }
 
-            if (connectionPool != null) {
-                httpClientBuilder = httpClientBuilder.connectionPool(connectionPool);
-            }
-            if (dispatcher != null) {
-                httpClientBuilder = httpClientBuilder.dispatcher(dispatcher);
+            if (resourceGroup != null) {
+                if (resourceGroup.isClosed()) {
+                    throw new IllegalStateException("The resource group has been closed.");
+                }
+                httpClientBuilder = httpClientBuilder
+                        .connectionPool(resourceGroup.connectionPool())
+                        .dispatcher(resourceGroup.dispatcher());
+                if (resourceGroup.callbackExecutor() != null) {
+                    retrofitBuilder.callbackExecutor(resourceGroup.callbackExecutor());
+                }
+            } else {
+                if (connectionPool != null) {
+                    httpClientBuilder = httpClientBuilder.connectionPool(connectionPool);
+                }
+                if (dispatcher != null) {
+                    httpClientBuilder = httpClientBuilder.dispatcher(dispatcher);
+                } else if (threadFactory != null) {
+                    // same settings as the default OkHttp thread pool
+                    httpClientBuilder = httpClientBuilder.dispatcher(new Dispatcher(new ThreadPoolExecutor(
+                            0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), threadFactory)));
+                }
             }
 
+            if (useLeanInterceptorChain) {
+                Iterator<Interceptor> iterator = httpClientBuilder.interceptors().iterator();
+                while (iterator.hasNext()) {
+                    Interceptor interceptor = iterator.next();
+                    if (interceptor instanceof RequestIdHeaderInterceptor || interceptor instanceof BaseUrlHandler) {
+                        iterator.remove();
+                    }
+                }
+                httpClientBuilder.interceptors().add(0, new CompositeHeadersInterceptor(userAgent, customHeadersInterceptor));
+                httpClientBuilder.cookieJar(CookieJar.NO_COOKIES);
+            } else {
+                httpClientBuilder
+                        .addInterceptor(userAgentInterceptor)
+                        .addInterceptor(customHeadersInterceptor);
+            }
+            if (useRequestCoalescing) {
+                httpClientBuilder.addInterceptor(new RequestCoalescingInterceptor());
+            }
+            httpClientBuilder.interceptors().add(0, new ShutdownInterceptor());
             OkHttpClient httpClient = httpClientBuilder
-                    .addInterceptor(userAgentInterceptor)
-                    .addInterceptor(customHeadersInterceptor)
                     .addInterceptor(retryHandler)
                     .addNetworkInterceptor(loggingInterceptor)
                     .build();
@@ -535,6 +733,11 @@ public final class RestClient {
             RxJavaCallAdapterFactory callAdapterFactory;
             if (useHttpClientThreadPool) {
                 callAdapterFactory = RxJavaCallAdapterFactory.createAsync();
+            } else if (resourceGroup != null && resourceGroup.scheduler() != null) {
+                callAdapterFactory = RxJavaCallAdapterFactory.createWithScheduler(resourceGroup.scheduler());
+            } else if (resourceGroup == null && dispatcher == null && threadFactory != null) {
+                callAdapterFactory = RxJavaCallAdapterFactory.createWithScheduler(
+                        Schedulers.from(httpClient.dispatcher().executorService()));
             } else {
                 callAdapterFactory = RxJavaCallAdapterFactory.create();
             }
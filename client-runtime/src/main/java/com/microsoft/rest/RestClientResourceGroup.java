@@ -0,0 +1,255 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.rest;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import rx.Scheduler;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An instance of this class owns the transport resources, i.e. the OkHttp dispatcher
+ * and connection pool, the callback executor and the Rx scheduler, that can be shared
+ * by many {@link RestClient} instances with different credentials and base URLs.
+ * <p>
+ * Each REST client built with a group holds a reference to it; closing the client
+ * releases the reference instead of shutting down the shared resources. The resources
+ * are shut down once the group is closed and all its clients are closed.
+ */
+public final class RestClientResourceGroup {
+    /** The dispatcher shared by the clients. */
+    private final Dispatcher dispatcher;
+    /** The connection pool shared by the clients. */
+    private final ConnectionPool connectionPool;
+    /** The executor for async callbacks, or null to use the Retrofit default. */
+    private final Executor callbackExecutor;
+    /** The scheduler to subscribe REST calls on, or null to use the RxJava default. */
+    private final Scheduler scheduler;
+    /** The number of open clients using this group. */
+    private int clientCount;
+    /** If the group has been closed. */
+    private boolean closed;
+
+    private RestClientResourceGroup(Builder builder) {
+        this.dispatcher = builder.dispatcher;
+        this.connectionPool = builder.connectionPool;
+        this.callbackExecutor = builder.callbackExecutor;
+        this.scheduler = builder.scheduler;
+    }
+
+    /**
+     * @return the dispatcher shared by the clients
+     */
+    public Dispatcher dispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * @return the connection pool shared by the clients
+     */
+    public ConnectionPool connectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * @return the executor for async callbacks, or null if not set
+     */
+    public Executor callbackExecutor() {
+        return callbackExecutor;
+    }
+
+    /**
+     * @return the scheduler to subscribe REST calls on, or null if not set
+     */
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @return the number of open clients using this group
+     */
+    public synchronized int clientCount() {
+        return clientCount;
+    }
+
+    /**
+     * @return true if the group has been closed
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes the group. No more clients can be built with it, and the shared
+     * resources are shut down as soon as all its clients are closed.
+     */
+    public void close() {
+        boolean shutdown;
+        synchronized (this) {
+            shutdown = !closed && clientCount == 0;
+            closed = true;
+        }
+        if (shutdown) {
+            shutdown();
+        }
+    }
+
+    /**
+     * Registers a client using this group.
+     */
+    synchronized void acquire() {
+        if (closed) {
+            throw new IllegalStateException("The resource group has been closed.");
+        }
+        clientCount++;
+    }
+
+    /**
+     * Unregisters a client using this group.
+     */
+    void release() {
+        boolean shutdown;
+        synchronized (this) {
+            clientCount--;
+            shutdown = closed && clientCount == 0;
+        }
+        if (shutdown) {
+            shutdown();
+        }
+    }
+
+    private void shutdown() {
+        dispatcher.executorService().shutdown();
+        connectionPool.evictAll();
+        if (callbackExecutor instanceof ExecutorService) {
+            ((ExecutorService) callbackExecutor).shutdown();
+        }
+    }
+
+    /**
+     * The builder class for building a resource group. The group takes ownership
+     * of the dispatcher, connection pool and callback executor passed in and shuts
+     * them down when it is closed. The Rx scheduler is left to its owner.
+     */
+    public static class Builder {
+        /** The dispatcher shared by the clients. */
+        private Dispatcher dispatcher;
+        /** The connection pool shared by the clients. */
+        private ConnectionPool connectionPool;
+        /** The executor for async callbacks. */
+        private Executor callbackExecutor;
+        /** The scheduler to subscribe REST calls on. */
+        private Scheduler scheduler;
+        /** The maximum number of concurrent requests. */
+        private int maxRequests = -1;
+        /** The maximum number of concurrent requests per host. */
+        private int maxRequestsPerHost = -1;
+
+        /**
+         * Sets the dispatcher. Default is a new OkHttp dispatcher.
+         *
+         * @param dispatcher the dispatcher to share
+         * @return the builder itself for chaining
+         */
+        public Builder withDispatcher(Dispatcher dispatcher) {
+            this.dispatcher = dispatcher;
+            return this;
+        }
+
+        /**
+         * Sets the thread pool executing the HTTP requests.
+         *
+         * @param executorService the thread pool to share
+         * @return the builder itself for chaining
+         */
+        public Builder withExecutorService(ExecutorService executorService) {
+            this.dispatcher = new Dispatcher(executorService);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of requests to execute concurrently across all clients.
+         *
+         * @param maxRequests the maximum number of concurrent requests
+         * @return the builder itself for chaining
+         */
+        public Builder withMaxRequests(int maxRequests) {
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of requests for each host to execute concurrently across all clients.
+         *
+         * @param maxRequestsPerHost the maximum number of concurrent requests per host
+         * @return the builder itself for chaining
+         */
+        public Builder withMaxRequestsPerHost(int maxRequestsPerHost) {
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * Sets the connection pool. Default is an OkHttp connection pool with 5 idle
+         * connections kept alive for 5 minutes.
+         *
+         * @param connectionPool the connection pool to share
+         * @return the builder itself for chaining
+         */
+        public Builder withConnectionPool(ConnectionPool connectionPool) {
+            this.connectionPool = connectionPool;
+            return this;
+        }
+
+        /**
+         * Sets the executor for async callbacks to run on.
+         *
+         * @param callbackExecutor the executor to share
+         * @return the builder itself for chaining
+         */
+        public Builder withCallbackExecutor(Executor callbackExecutor) {
+            this.callbackExecutor = callbackExecutor;
+            return this;
+        }
+
+        /**
+         * Sets the Rx scheduler REST calls are subscribed on, when the clients
+         * don't use the HTTP client thread pool.
+         *
+         * @param scheduler the scheduler to share
+         * @return the builder itself for chaining
+         */
+        public Builder withScheduler(Scheduler scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Build a resource group with all the current configurations.
+         *
+         * @return a {@link RestClientResourceGroup}
+         */
+        public RestClientResourceGroup build() {
+            if (dispatcher == null) {
+                dispatcher = new Dispatcher();
+            }
+            if (maxRequests > 0) {
+                dispatcher.setMaxRequests(maxRequests);
+            }
+            if (maxRequestsPerHost > 0) {
+                dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+            }
+            if (connectionPool == null) {
+                connectionPool = new ConnectionPool(5, 5, TimeUnit.MINUTES);
+            }
+            return new RestClientResourceGroup(this);
+        }
+    }
+}
@@ -7,12 +7,16 @@
 package com.microsoft.rest;
 
 import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import rx.Completable;
 import rx.Observable;
 import rx.Subscription;
 import rx.functions.Action0;
 import rx.functions.Action1;
 
+import java.util.concurrent.Executor;
+
 /**
  * An instance of this class provides access to the underlying REST call invocation.
  * This class wraps around the Retrofit Call object and allows updates to it in the
@@ -127,7 +131,7 @@ public class ServiceFuture<T> extends AbstractFuture<T> {
      */
     public static ServiceFuture<Void> fromBody(final Completable completable, final ServiceCallback<Void> callback) {
         final ServiceFuture<Void> serviceFuture = new ServiceFuture<>();
-        completable.subscribe(new Action0() {
+        serviceFuture.subscription = completable.subscribe(new Action0() {
             Void value = null;
             @Override
             public void call() {
@@ -148,6 +152,38 @@ public class ServiceFuture<T> extends AbstractFuture<T> {
         return serviceFuture;
     };
 
+    /**
+     * Creates a ServiceFuture from an observable object and a callback invoked on the
+     * given executor rather than on the thread the observable completes on.
+     *
+     * @param observable the observable to create from
+     * @param callback the callback to call when events happen
+     * @param executor the executor to run the callback on
+     * @param <T> the type of the response
+     * @return the created ServiceFuture
+     */
+    public static <T> ServiceFuture<T> fromResponse(final Observable<ServiceResponse<T>> observable, final ServiceCallback<T> callback, final Executor executor) {
+        ServiceFuture<T> serviceFuture = fromResponse(observable);
+        serviceFuture.addCallback(callback, executor);
+        return serviceFuture;
+    }
+
+    /**
+     * Creates a ServiceFuture from an observable object and a callback invoked on the
+     * given executor rather than on the thread the observable completes on.
+     *
+     * @param observable the observable to create from
+     * @param callback the callback to call when events happen
+     * @param executor the executor to run the callback on
+     * @param <T> the type of the response
+     * @return the created ServiceFuture
+     */
+    public static <T> ServiceFuture<T> fromBody(final Observable<T> observable, final ServiceCallback<T> callback, final Executor executor) {
+        ServiceFuture<T> serviceFuture = fromBody(observable, null);
+        serviceFuture.addCallback(callback, executor);
+        return serviceFuture;
+    }
+
     /**
      * Creates a ServiceCall from an observable and a callback for a header response.
      *
@@ -181,6 +217,48 @@ public class ServiceFuture<T> extends AbstractFuture<T> {
         return serviceFuture;
     }
 
+    /**
+     * Creates a ServiceFuture from an observable and a callback for a header response,
+     * invoked on the given executor rather than on the thread the observable completes on.
+     *
+     * @param observable the observable of a REST call that returns JSON in a header
+     * @param callback the callback to call when events happen
+     * @param executor the executor to run the callback on
+     * @param <T> the type of the response body
+     * @param <V> the type of the response header
+     * @return the created ServiceFuture
+     */
+    public static <T, V> ServiceFuture<T> fromHeaderResponse(final Observable<ServiceResponseWithHeaders<T, V>> observable, final ServiceCallback<T> callback, final Executor executor) {
+        ServiceFuture<T> serviceFuture = fromHeaderResponse(observable, null);
+        serviceFuture.addCallback(callback, executor);
+        return serviceFuture;
+    }
+
+    /**
+     * Registers a callback to run on the given executor when the call completes.
+     * Futures composed from this one with {@link com.google.common.util.concurrent.Futures}
+     * propagate cancellation back to it, which cancels the underlying HTTP call.
+     *
+     * @param callback the callback to call when events happen
+     * @param executor the executor to run the callback on
+     */
+    public void addCallback(final ServiceCallback<T> callback, Executor executor) {
+        if (callback == null) {
+            return;
+        }
+        Futures.addCallback(this, new FutureCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                callback.success(result);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                callback.failure(t);
+            }
+        }, executor);
+    }
+
     /**
      * @return the current Rx subscription associated with the ServiceCall.
      */
@@ -203,14 +281,27 @@ public class ServiceFuture<T> extends AbstractFuture<T> {
         return set(result);
     }
 
+    /**
+     * Cancels the call. The subscription is unsubscribed, which cancels the
+     * HTTP call in flight and stops any pending long running operation poll.
+     *
+     * @param mayInterruptIfRunning ignored, the HTTP call is always cancelled
+     * @return false if the call could not be cancelled, typically because it has already completed
+     */
     @Override
     public boolean cancel(boolean mayInterruptIfRunning) {
-        subscription.unsubscribe();
+        if (subscription != null) {
+            subscription.unsubscribe();
+        }
         return super.cancel(mayInterruptIfRunning);
     }
 
     @Override
     public boolean isCancelled() {
-        return subscription.isUnsubscribed();
+        if (isDone()) {
+            return super.isCancelled();
+        }
+        // unsubscribed without being cancelled through this future
+        return subscription != null && subscription.isUnsubscribed();
     }
 }
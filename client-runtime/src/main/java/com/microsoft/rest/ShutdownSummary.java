@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.rest;
+
+import okhttp3.Request;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a graceful {@link RestClient} shutdown.
+ */
+public final class ShutdownSummary {
+    /** The requests of the calls cancelled because the timeout elapsed. */
+    private final List<Request> cancelledRequests;
+    /** The time the shutdown took in milliseconds. */
+    private final long elapsedMillis;
+
+    ShutdownSummary(List<Request> cancelledRequests, long elapsedMillis) {
+        this.cancelledRequests = Collections.unmodifiableList(cancelledRequests);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return true if all calls in flight completed before the timeout
+     */
+    public boolean isGraceful() {
+        return cancelledRequests.isEmpty();
+    }
+
+    /**
+     * @return the requests of the calls cancelled because the timeout elapsed
+     */
+    public List<Request> cancelledRequests() {
+        return cancelledRequests;
+    }
+
+    /**
+     * @return the time the shutdown took in milliseconds
+     */
+    public long elapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ShutdownSummary{cancelled=" + cancelledRequests.size() + ", elapsedMillis=" + elapsedMillis + "}";
+    }
+}
@@ -12,6 +12,9 @@ import okhttp3.Request;
 import okhttp3.Response;
 
 import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
 
 /**
  * Handles dynamic replacements on base URL. The arguments must be in pairs
@@ -20,30 +23,58 @@ import java.io.IOException;
  * dynamically by setting header x-ms-parameterized-host: "{subdomain}, azure"
  */
 public final class BaseUrlHandler implements Interceptor {
+    /** The header containing the replacement pairs. */
+    static final String PARAMETERIZED_HOST_HEADER = "x-ms-parameterized-host";
+    /** The maximum number of compiled host templates to cache. */
+    private static final int MAX_CACHED_TEMPLATES = 256;
+    /** The compiled patterns for the host template variables, e.g. "{accountName}". */
+    private static final ConcurrentMap<String, Pattern> TEMPLATES = new ConcurrentHashMap<>();
+
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request request = chain.request();
-        String parameters = request.header("x-ms-parameterized-host");
+        String parameters = request.header(PARAMETERIZED_HOST_HEADER);
         if (parameters != null && !parameters.isEmpty()) {
-            String[] replacements = parameters.split(", ");
-            if (replacements.length % 2 != 0) {
-                throw new IllegalArgumentException("Must provide a replacement value for each pattern");
-            }
-            String baseUrl = request.url().toString();
-            for (int i = 0; i < replacements.length; i += 2) {
-                baseUrl = baseUrl.replaceAll("(?i)\\Q" + replacements[i] + "\\E", replacements[i + 1]);
-            }
-            baseUrl = removeRedundantProtocol(baseUrl);
-            HttpUrl baseHttpUrl = HttpUrl.parse(baseUrl);
             request = request.newBuilder()
-                    .url(baseHttpUrl)
-                    .removeHeader("x-ms-parameterized-host")
+                    .url(expandHost(request.url(), parameters))
+                    .removeHeader(PARAMETERIZED_HOST_HEADER)
                     .build();
         }
         return chain.proceed(request);
     }
 
-    private String removeRedundantProtocol(String url) {
+    /**
+     * Replaces the host template variables in a URL with their values.
+     *
+     * @param url the URL containing the template variables
+     * @param parameters the value of the 'x-ms-parameterized-host' header
+     * @return the expanded URL
+     */
+    static HttpUrl expandHost(HttpUrl url, String parameters) {
+        String[] replacements = parameters.split(", ");
+        if (replacements.length % 2 != 0) {
+            throw new IllegalArgumentException("Must provide a replacement value for each pattern");
+        }
+        String baseUrl = url.toString();
+        for (int i = 0; i < replacements.length; i += 2) {
+            baseUrl = template(replacements[i]).matcher(baseUrl).replaceAll(replacements[i + 1]);
+        }
+        return HttpUrl.parse(removeRedundantProtocol(baseUrl));
+    }
+
+    private static Pattern template(String variable) {
+        Pattern pattern = TEMPLATES.get(variable);
+        if (pattern == null) {
+            if (TEMPLATES.size() >= MAX_CACHED_TEMPLATES) {
+                TEMPLATES.clear();
+            }
+            pattern = Pattern.compile("(?i)\\Q" + variable + "\\E");
+            TEMPLATES.putIfAbsent(variable, pattern);
+        }
+        return pattern;
+    }
+
+    private static String removeRedundantProtocol(String url) {
         int last = url.lastIndexOf("://") - 1;
         while (last >= 0 && Character.isLetter(url.charAt(last))) {
             --last;
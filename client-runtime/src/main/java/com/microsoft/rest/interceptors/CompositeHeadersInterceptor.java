@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.rest.interceptors;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * An interceptor that does the work of {@link RequestIdHeaderInterceptor},
+ * {@link BaseUrlHandler}, {@link UserAgentInterceptor} and {@link CustomHeadersInterceptor}
+ * with a single request rebuild. It is placed at the beginning of the pipeline, so
+ * interceptors added later see the final URL and headers.
+ */
+public final class CompositeHeadersInterceptor implements Interceptor {
+    /**
+     * The user agent string.
+     */
+    private final String userAgent;
+
+    /**
+     * The interceptor storing the custom headers.
+     */
+    private final CustomHeadersInterceptor customHeadersInterceptor;
+
+    /**
+     * Initialize an instance of {@link CompositeHeadersInterceptor} class.
+     *
+     * @param userAgent the user agent string, or null to use the default one
+     * @param customHeadersInterceptor the interceptor storing the custom headers
+     */
+    public CompositeHeadersInterceptor(String userAgent, CustomHeadersInterceptor customHeadersInterceptor) {
+        if (customHeadersInterceptor == null) {
+            throw new NullPointerException("customHeadersInterceptor == null");
+        }
+        this.userAgent = userAgent == null ? new UserAgentInterceptor().userAgent() : userAgent;
+        this.customHeadersInterceptor = customHeadersInterceptor;
+    }
+
+    /**
+     * @return the current user agent string.
+     */
+    public String userAgent() {
+        return userAgent;
+    }
+
+    /**
+     * @return the interceptor storing the custom headers.
+     */
+    public CustomHeadersInterceptor customHeadersInterceptor() {
+        return customHeadersInterceptor;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Request.Builder builder = request.newBuilder();
+        if (request.header(RequestIdHeaderInterceptor.REQUEST_ID_HEADER) == null) {
+            builder.header(RequestIdHeaderInterceptor.REQUEST_ID_HEADER, UUID.randomUUID().toString());
+        }
+        String parameters = request.header(BaseUrlHandler.PARAMETERIZED_HOST_HEADER);
+        if (parameters != null && !parameters.isEmpty()) {
+            builder.url(BaseUrlHandler.expandHost(request.url(), parameters))
+                    .removeHeader(BaseUrlHandler.PARAMETERIZED_HOST_HEADER);
+        }
+        builder.header("User-Agent", UserAgentInterceptor.userAgentHeader(userAgent, request.header("User-Agent")));
+        return chain.proceed(customHeadersInterceptor.applyTo(builder).build());
+    }
+}
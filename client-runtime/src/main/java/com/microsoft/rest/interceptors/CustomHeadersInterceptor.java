@@ -24,17 +24,50 @@ import java.util.Map;
  */
 public final class CustomHeadersInterceptor implements Interceptor {
     /**
+     * Gets the custom headers. Changes to the returned map are applied to the
+     * following requests, but stop the headers from being cached between requests.
+     *
      * @return the currently stored custom headers
+     * @deprecated use {@link #headersCopy()} to read the headers and the methods
+     * of this interceptor to change them
      */
-    public Map<String, List<String>> headers() {
+    @Deprecated
+    public synchronized Map<String, List<String>> headers() {
+        exposed = true;
+        snapshot = null;
         return headers;
     }
 
     /**
-     * A mapping of custom headers.
+     * Gets a copy of the custom headers. The copy cannot be modified; use the
+     * methods of this interceptor to change the headers.
+     *
+     * @return the currently stored custom headers
+     */
+    public synchronized Map<String, List<String>> headersCopy() {
+        Map<String, List<String>> copy = new HashMap<String, List<String>>();
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            copy.put(header.getKey(), Collections.unmodifiableList(new ArrayList<String>(header.getValue())));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * A mapping of custom headers, guarded by this.
      */
     private Map<String, List<String>> headers;
 
+    /**
+     * The immutable headers applied to requests, rebuilt after each modification.
+     */
+    private volatile Headers snapshot;
+
+    /**
+     * Whether the map of headers was handed out by {@link #headers()} and may be
+     * changed without this interceptor knowing, guarded by this.
+     */
+    private boolean exposed;
+
     /**
      * Initialize an instance of {@link CustomHeadersInterceptor} class.
      */
@@ -61,9 +94,10 @@ public final class CustomHeadersInterceptor implements Interceptor {
      * @param value the value of the header.
      * @return the interceptor instance itself.
      */
-    public CustomHeadersInterceptor replaceHeader(String name, String value) {
+    public synchronized CustomHeadersInterceptor replaceHeader(String name, String value) {
         this.headers.put(name, new ArrayList<String>());
         this.headers.get(name).add(value);
+        snapshot = null;
         return this;
     }
 
@@ -75,11 +109,12 @@ public final class CustomHeadersInterceptor implements Interceptor {
      * @param value the value of the header.
      * @return the interceptor instance itself.
      */
-    public CustomHeadersInterceptor addHeader(String name, String value) {
+    public synchronized CustomHeadersInterceptor addHeader(String name, String value) {
         if (!this.headers.containsKey(name)) {
             this.headers.put(name, new ArrayList<String>());
         }
         this.headers.get(name).add(value);
+        snapshot = null;
         return this;
     }
 
@@ -89,8 +124,9 @@ public final class CustomHeadersInterceptor implements Interceptor {
      * @param headers an OkHttp {@link Headers} object.
      * @return the interceptor instance itself.
      */
-    public CustomHeadersInterceptor addHeaders(Headers headers) {
+    public synchronized CustomHeadersInterceptor addHeaders(Headers headers) {
         this.headers.putAll(headers.toMultimap());
+        snapshot = null;
         return this;
     }
 
@@ -100,10 +136,13 @@ public final class CustomHeadersInterceptor implements Interceptor {
      * @param headers a map of headers.
      * @return the interceptor instance itself.
      */
-    public CustomHeadersInterceptor addHeaderMap(Map<String, String> headers) {
+    public synchronized CustomHeadersInterceptor addHeaderMap(Map<String, String> headers) {
         for (Map.Entry<String, String> header : headers.entrySet()) {
-            this.headers.put(header.getKey(), Collections.singletonList(header.getValue()));
+            List<String> values = new ArrayList<String>();
+            values.add(header.getValue());
+            this.headers.put(header.getKey(), values);
         }
+        snapshot = null;
         return this;
     }
 
@@ -113,8 +152,11 @@ public final class CustomHeadersInterceptor implements Interceptor {
      * @param headers a multimap of headers.
      * @return the interceptor instance itself.
      */
-    public CustomHeadersInterceptor addHeaderMultimap(Map<String, List<String>> headers) {
-        this.headers.putAll(headers);
+    public synchronized CustomHeadersInterceptor addHeaderMultimap(Map<String, List<String>> headers) {
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            this.headers.put(header.getKey(), new ArrayList<String>(header.getValue()));
+        }
+        snapshot = null;
         return this;
     }
 
@@ -124,19 +166,61 @@ public final class CustomHeadersInterceptor implements Interceptor {
      * @param name the name of the header to remove.
      * @return the interceptor instance itself.
      */
-    public CustomHeadersInterceptor removeHeader(String name) {
+    public synchronized CustomHeadersInterceptor removeHeader(String name) {
         this.headers.remove(name);
+        snapshot = null;
         return this;
     }
 
+    /**
+     * Gets an immutable snapshot of the headers to apply to a request. When a
+     * header has multiple values, the last one is applied.
+     *
+     * @return the headers to apply
+     */
+    public Headers snapshot() {
+        Headers current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null) {
+                return current;
+            }
+            Headers.Builder builder = new Headers.Builder();
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                for (String value : header.getValue()) {
+                    builder.set(header.getKey(), value);
+                }
+            }
+            current = builder.build();
+            if (!exposed) {
+                snapshot = current;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Applies the custom headers to a request builder.
+     *
+     * @param builder the request builder
+     * @return the request builder
+     */
+    Request.Builder applyTo(Request.Builder builder) {
+        Headers current = snapshot();
+        for (int i = 0; i < current.size(); i++) {
+            builder.header(current.name(i), current.value(i));
+        }
+        return builder;
+    }
+
     @Override
     public Response intercept(Chain chain) throws IOException {
-        Request.Builder builder = chain.request().newBuilder();
-        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
-            for (String value : header.getValue()) {
-                builder = builder.header(header.getKey(), value);
-            }
+        if (snapshot().size() == 0) {
+            return chain.proceed(chain.request());
         }
-        return chain.proceed(builder.build());
+        return chain.proceed(applyTo(chain.request().newBuilder()).build());
     }
 }
@@ -0,0 +1,237 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.rest.interceptors;
+
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An interceptor that coalesces concurrent identical GET requests into a single
+ * network call. Two requests are identical when they share the same URL and the
+ * same headers, including the 'Authorization' header, so requests made with
+ * different credentials are never coalesced. Headers that do not affect the
+ * response, like the client request id, are ignored.
+ * <p>
+ * The response body of the shared call is buffered and handed to every waiting
+ * request, as long as its Content-Length is known and at most 1 MiB. Any other
+ * response is streamed to the request that made the call only, and the waiting
+ * requests make their own calls without being coalesced. Set header
+ * 'x-ms-request-coalescing: false' on a request to opt out altogether.
+ * <p>
+ * A waiting request still fails on its own cancellation and timeouts, which it
+ * checks every 50 milliseconds while waiting. When the request making the shared
+ * call is cancelled or times out, the waiting requests make the call again
+ * instead of failing with it.
+ */
+public final class RequestCoalescingInterceptor implements Interceptor {
+    /**
+     * The header to opt a single request out of coalescing.
+     */
+    public static final String COALESCING_HEADER = "x-ms-request-coalescing";
+
+    /**
+     * Headers that are unique per request and do not affect the response.
+     */
+    private static final Set<String> IGNORED_HEADERS = new HashSet<>(Arrays.asList(
+            "x-ms-client-request-id",
+            "x-ms-logging-context",
+            "x-ms-body-logging"));
+
+    /**
+     * The largest response body buffered to be shared between requests.
+     */
+    private static final long MAX_SHARED_BODY_BYTES = 1024 * 1024;
+
+    /**
+     * The calls currently in flight, keyed by request identity.
+     */
+    private final ConcurrentMap<String, InFlightCall> inFlightCalls = new ConcurrentHashMap<>();
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String coalescing = request.header(COALESCING_HEADER);
+        if (coalescing != null) {
+            request = request.newBuilder().removeHeader(COALESCING_HEADER).build();
+        }
+        if (!"GET".equals(request.method()) || "false".equalsIgnoreCase(coalescing)) {
+            return chain.proceed(request);
+        }
+
+        String key = keyOf(request);
+        InFlightCall call = new InFlightCall();
+        InFlightCall existing;
+        while ((existing = inFlightCalls.putIfAbsent(key, call)) != null) {
+            if (existing.await(chain)) {
+                return existing.toResponse(request);
+            }
+            if (existing.streamed) {
+                // the response could not be shared, and the next one would not either
+                return chain.proceed(request);
+            }
+            // the call was abandoned by the request that made it, this request makes its own
+        }
+
+        try {
+            Response response = chain.proceed(request);
+            if (!call.complete(response)) {
+                return response;
+            }
+        } catch (IOException | RuntimeException e) {
+            // a cancellation or a timeout is specific to this request, not to the others
+            call.fail(e, chain.call().isCanceled() || e instanceof InterruptedIOException);
+            throw e;
+        } finally {
+            inFlightCalls.remove(key, call);
+            call.latch.countDown();
+        }
+        return call.toResponse(request);
+    }
+
+    /**
+     * @return the number of distinct calls currently in flight
+     */
+    public int inFlightCount() {
+        return inFlightCalls.size();
+    }
+
+    private static String keyOf(Request request) {
+        StringBuilder builder = new StringBuilder(request.url().toString());
+        Headers headers = request.headers();
+        Set<String> names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        names.addAll(headers.names());
+        for (String name : names) {
+            if (IGNORED_HEADERS.contains(name.toLowerCase())) {
+                continue;
+            }
+            builder.append('\n').append(name.toLowerCase()).append(':');
+            for (String value : headers.values(name)) {
+                builder.append(value).append(',');
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The state of a network call shared by one or more requests.
+     */
+    private static final class InFlightCall {
+        /** The interval at which a waiting request checks whether it was cancelled. */
+        private static final long CANCELLATION_CHECK_MILLIS = 50;
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private Response prototype;
+        private MediaType contentType;
+        private byte[] body;
+        private Exception error;
+        private boolean abandoned;
+        private boolean streamed;
+
+        /**
+         * Buffers the response to share it with the waiting requests.
+         *
+         * @param response the response of the call
+         * @return false if the body is too large or of unknown length to be buffered,
+         *         in which case the response is left for the request that made the call
+         * @throws IOException if the body cannot be read
+         */
+        private boolean complete(Response response) throws IOException {
+            ResponseBody responseBody = response.body();
+            if (responseBody != null) {
+                long contentLength = responseBody.contentLength();
+                if (contentLength < 0 || contentLength > MAX_SHARED_BODY_BYTES) {
+                    abandoned = true;
+                    streamed = true;
+                    return false;
+                }
+                try {
+                    contentType = responseBody.contentType();
+                    body = responseBody.bytes();
+                } finally {
+                    responseBody.close();
+                }
+            }
+            prototype = response.newBuilder().body(null).build();
+            return true;
+        }
+
+        private void fail(Exception e, boolean abandoned) {
+            this.error = e;
+            this.abandoned = abandoned;
+        }
+
+        /**
+         * Waits for the call to complete, as long as the waiting request is not cancelled
+         * and its timeouts allow.
+         *
+         * @param chain the chain of the waiting request
+         * @return true if the call completed, false if it was abandoned
+         * @throws IOException if the call failed, or the waiting request was cancelled or timed out
+         */
+        private boolean await(Chain chain) throws IOException {
+            long timeoutMillis = timeoutMillis(chain);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            try {
+                while (!latch.await(CANCELLATION_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (chain.call().isCanceled()) {
+                        throw new IOException("Canceled");
+                    }
+                    if (timeoutMillis > 0 && System.nanoTime() - deadline > 0) {
+                        throw new SocketTimeoutException("Timed out after " + timeoutMillis + "ms waiting for a coalesced request");
+                    }
+                }
+            } catch (InterruptedException e) {
+                InterruptedIOException exception = new InterruptedIOException("Interrupted while waiting for a coalesced request");
+                exception.initCause(e);
+                throw exception;
+            }
+            if (abandoned) {
+                return false;
+            }
+            if (error instanceof IOException) {
+                throw new IOException(error.getMessage(), error);
+            } else if (error != null) {
+                throw new IOException(error);
+            }
+            return true;
+        }
+
+        /**
+         * @return the time the request would be allowed to take on its own, 0 for no limit
+         */
+        private static long timeoutMillis(Chain chain) {
+            if (chain.connectTimeoutMillis() == 0 || chain.writeTimeoutMillis() == 0 || chain.readTimeoutMillis() == 0) {
+                return 0;
+            }
+            return (long) chain.connectTimeoutMillis() + chain.writeTimeoutMillis() + chain.readTimeoutMillis();
+        }
+
+        private Response toResponse(Request request) {
+            Response.Builder builder = prototype.newBuilder().request(request);
+            if (body != null) {
+                builder.body(ResponseBody.create(contentType, body));
+            }
+            return builder.build();
+        }
+    }
+}
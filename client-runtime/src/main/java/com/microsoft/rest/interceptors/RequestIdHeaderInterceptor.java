@@ -18,12 +18,15 @@ import java.util.UUID;
  * the request id as the unique identifier for
  */
 public final class RequestIdHeaderInterceptor implements Interceptor {
+    /** The header containing the client request id. */
+    static final String REQUEST_ID_HEADER = "x-ms-client-request-id";
+
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request request = chain.request();
-        if (request.header("x-ms-client-request-id") == null) {
+        if (request.header(REQUEST_ID_HEADER) == null) {
             request = chain.request().newBuilder()
-                    .header("x-ms-client-request-id", UUID.randomUUID().toString())
+                    .header(REQUEST_ID_HEADER, UUID.randomUUID().toString())
                     .build();
         }
         return chain.proceed(request);
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.rest.interceptors;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An interceptor that keeps track of the calls in flight, so that a REST client
+ * can stop accepting new calls and wait for the running ones before shutting down.
+ * Once {@link #shutdown()} is called, new calls fail with an {@link IOException}.
+ */
+public final class ShutdownInterceptor implements Interceptor {
+    /**
+     * The calls currently in flight.
+     */
+    private final Set<Call> inFlightCalls = Collections.newSetFromMap(new ConcurrentHashMap<Call, Boolean>());
+
+    /**
+     * If the client is shutting down.
+     */
+    private volatile boolean shutdown;
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Call call = chain.call();
+        inFlightCalls.add(call);
+        try {
+            if (shutdown) {
+                throw new IOException("The REST client has been shut down.");
+            }
+            return chain.proceed(chain.request());
+        } finally {
+            inFlightCalls.remove(call);
+            if (shutdown && inFlightCalls.isEmpty()) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accepting new calls.
+     */
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    /**
+     * @return true if the client is shutting down
+     */
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * @return the number of calls currently in flight
+     */
+    public int inFlightCount() {
+        return inFlightCalls.size();
+    }
+
+    /**
+     * Waits for the calls in flight to complete.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the time unit of the timeout argument
+     * @return true if all calls completed, false if the timeout elapsed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this) {
+            while (!inFlightCalls.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cancels the calls in flight.
+     *
+     * @return the requests of the cancelled calls
+     */
+    public List<Request> cancelAll() {
+        List<Request> cancelled = new ArrayList<>();
+        for (Call call : inFlightCalls) {
+            call.cancel();
+            cancelled.add(call.request());
+        }
+        return cancelled;
+    }
+}
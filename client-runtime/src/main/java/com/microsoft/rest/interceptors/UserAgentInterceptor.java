@@ -65,8 +65,20 @@ public final class UserAgentInterceptor implements Interceptor {
 
     @Override
     public Response intercept(Chain chain) throws IOException {
-        Request request = chain.request();
-        String header = request.header("User-Agent");
+        Request request = chain.request().newBuilder()
+                .header("User-Agent", userAgentHeader(userAgent, chain.request().header("User-Agent")))
+                .build();
+        return chain.proceed(request);
+    }
+
+    /**
+     * Computes the value of the 'User-Agent' header to send.
+     *
+     * @param userAgent the user agent configured on the client
+     * @param header the current 'User-Agent' header on the request, or null
+     * @return the header value
+     */
+    static String userAgentHeader(String userAgent, String header) {
         if (header == null) {
             header = DEFAULT_USER_AGENT_HEADER;
         }
@@ -77,9 +89,6 @@ public final class UserAgentInterceptor implements Interceptor {
                 header = userAgent + " " + header;
             }
         }
-        request = chain.request().newBuilder()
-                .header("User-Agent", header)
-                .build();
-        return chain.proceed(request);
+        return header;
     }
 }
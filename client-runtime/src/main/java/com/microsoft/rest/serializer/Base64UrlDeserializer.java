@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.rest.serializer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.microsoft.rest.Base64Url;
+
+import java.io.IOException;
+
+/**
+ * Custom deserializer for deserializing Base64Url strings into {@link Base64Url} objects.
+ * The encoded characters are copied straight from the parser buffer and decoded
+ * only when the bytes are asked for.
+ */
+public final class Base64UrlDeserializer extends JsonDeserializer<Base64Url> {
+    /**
+     * Gets a module wrapping this deserializer as an adapter for the Jackson
+     * ObjectMapper.
+     *
+     * @return a simple module to be plugged onto Jackson ObjectMapper.
+     */
+    public static SimpleModule getModule() {
+        SimpleModule module = new SimpleModule();
+        module.addDeserializer(Base64Url.class, new Base64UrlDeserializer());
+        return module;
+    }
+
+    @Override
+    public Base64Url deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (!p.hasToken(JsonToken.VALUE_STRING)) {
+            return (Base64Url) ctxt.handleUnexpectedToken(Base64Url.class, p);
+        }
+        char[] text = p.getTextCharacters();
+        int offset = p.getTextOffset();
+        byte[] bytes = new byte[p.getTextLength()];
+        for (int i = 0; i < bytes.length; i++) {
+            char c = text[offset + i];
+            if (c >= 0x80) {
+                return (Base64Url) ctxt.handleWeirdStringValue(Base64Url.class, p.getText(),
+                    "Illegal character '%s' at index %d in a Base64Url value", c, i);
+            }
+            bytes[i] = (byte) c;
+        }
+        return Base64Url.fromEncodedBytes(bytes);
+    }
+}
@@ -6,6 +6,8 @@
 
 package com.microsoft.rest.serializer;
 
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.Base64Variants;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
@@ -18,6 +20,12 @@ import java.io.IOException;
  * Custom serializer for serializing {@link Byte[]} objects into Base64 strings.
  */
 public final class Base64UrlSerializer extends JsonSerializer<Base64Url> {
+    /**
+     * The URL-safe Base64 variant. Padding is omitted when writing and accepted when reading.
+     */
+    public static final Base64Variant BASE64_URL =
+        new Base64Variant(Base64Variants.MODIFIED_FOR_URL, "BASE64URL", false, '=', Integer.MAX_VALUE);
+
     /**
      * Gets a module wrapping this serializer as an adapter for the Jackson
      * ObjectMapper.
@@ -32,6 +40,21 @@ public final class Base64UrlSerializer extends JsonSerializer<Base64Url> {
 
     @Override
     public void serialize(Base64Url value, JsonGenerator jgen, SerializerProvider provider) throws IOException {
-        jgen.writeString(value.toString());
+        if (value.isFromDecodedBytes()) {
+            byte[] bytes = value.decodedBytes();
+            jgen.writeBinary(BASE64_URL, bytes, 0, bytes.length);
+            return;
+        }
+        // encoded bytes are written as they are, as the URL and header paths do
+        byte[] encoded = value.encodedBytes();
+        if (encoded == null) {
+            jgen.writeNull();
+            return;
+        }
+        char[] text = new char[encoded.length];
+        for (int i = 0; i < encoded.length; i++) {
+            text[i] = (char) (encoded[i] & 0xFF);
+        }
+        jgen.writeString(text, 0, text.length);
     }
 }
@@ -0,0 +1,284 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.rest.serializer;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.chrono.ISOChronology;
+
+/**
+ * Hand-written formatter and parser for the RFC1123 and ISO-8601 date time formats
+ * used on the wire. They produce exactly the same results as the Joda formatters
+ * for the canonical forms; the methods return null for anything else so callers
+ * can fall back to Joda.
+ */
+public final class DateTimeCodec {
+    private static final long MILLIS_PER_DAY = 86400000L;
+    private static final String[] DAYS_OF_WEEK = {"Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat"};
+    private static final String[] MONTHS = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+    private static final int RFC1123_LENGTH = "Tue, 01 May 2018 10:20:30 GMT".length();
+
+    private DateTimeCodec() {
+    }
+
+    /**
+     * Formats a date time as 'yyyy-MM-ddTHH:mm:ss.SSSZ' in UTC, like
+     * {@code ISODateTimeFormat.dateTime()} after converting to UTC.
+     *
+     * @param dateTime the date time to format
+     * @return the formatted string, or null if the date time is outside the supported range
+     */
+    public static String formatIso8601(DateTime dateTime) {
+        StringBuilder builder = new StringBuilder(24);
+        return appendIso8601(builder, dateTime) ? builder.toString() : null;
+    }
+
+    /**
+     * Appends a date time as 'yyyy-MM-ddTHH:mm:ss.SSSZ' in UTC.
+     *
+     * @param builder the builder to append to
+     * @param dateTime the date time to format
+     * @return false if the date time is outside the supported range and nothing was appended
+     */
+    public static boolean appendIso8601(StringBuilder builder, DateTime dateTime) {
+        if (!(dateTime.getChronology() instanceof ISOChronology)) {
+            return false;
+        }
+        long millis = dateTime.getMillis();
+        long days = floorDiv(millis, MILLIS_PER_DAY);
+        int[] date = civilFromDays(days);
+        if (date[0] < 0 || date[0] > 9999) {
+            return false;
+        }
+        int millisOfDay = (int) (millis - days * MILLIS_PER_DAY);
+        append(builder, date[0], 4).append('-');
+        append(builder, date[1], 2).append('-');
+        append(builder, date[2], 2).append('T');
+        appendTime(builder, millisOfDay).append('.');
+        append(builder, millisOfDay % 1000, 3).append('Z');
+        return true;
+    }
+
+    /**
+     * Formats a date time as 'EEE, dd MMM yyyy HH:mm:ss GMT'.
+     *
+     * @param dateTime the date time to format
+     * @return the formatted string, or null if the date time is outside the supported range
+     */
+    public static String formatRfc1123(DateTime dateTime) {
+        if (!(dateTime.getChronology() instanceof ISOChronology)) {
+            return null;
+        }
+        long millis = dateTime.getMillis();
+        long days = floorDiv(millis, MILLIS_PER_DAY);
+        int[] date = civilFromDays(days);
+        if (date[0] < 0 || date[0] > 9999) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder(RFC1123_LENGTH);
+        builder.append(DAYS_OF_WEEK[dayOfWeek(days)]).append(", ");
+        append(builder, date[2], 2).append(' ');
+        builder.append(MONTHS[date[1] - 1]).append(' ');
+        append(builder, date[0], 4).append(' ');
+        appendTime(builder, (int) (millis - days * MILLIS_PER_DAY));
+        return builder.append(" GMT").toString();
+    }
+
+    /**
+     * Parses a date time in the form 'EEE, dd MMM yyyy HH:mm:ss GMT'.
+     *
+     * @param value the string to parse
+     * @return the date time in UTC, or null if the string is not in the canonical form
+     */
+    public static DateTime parseRfc1123(String value) {
+        if (value == null || value.length() != RFC1123_LENGTH
+                || value.charAt(3) != ',' || value.charAt(4) != ' ' || value.charAt(7) != ' '
+                || value.charAt(11) != ' ' || value.charAt(16) != ' ' || value.charAt(19) != ':'
+                || value.charAt(22) != ':' || !value.endsWith(" GMT")) {
+            return null;
+        }
+        int dayOfWeek = indexOf(DAYS_OF_WEEK, value, 0);
+        int month = indexOf(MONTHS, value, 8) + 1;
+        int day = digits(value, 5, 2);
+        int year = digits(value, 12, 4);
+        int hour = digits(value, 17, 2);
+        int minute = digits(value, 20, 2);
+        int second = digits(value, 23, 2);
+        if (dayOfWeek < 0 || month < 1 || year < 0 || !isValid(year, month, day, hour, minute, second)) {
+            return null;
+        }
+        long days = daysFromCivil(year, month, day);
+        if (dayOfWeek(days) != dayOfWeek) {
+            // leave a mismatching day of week to Joda
+            return null;
+        }
+        return new DateTime(days * MILLIS_PER_DAY + ((hour * 60L + minute) * 60L + second) * 1000L, DateTimeZone.UTC);
+    }
+
+    /**
+     * Parses a date time in the form 'yyyy-MM-ddTHH:mm:ss[.fffffffff](Z|+HH:mm|-HH:mm)'.
+     * Fractions of second beyond milliseconds are truncated, like Joda does.
+     *
+     * @param value the string to parse
+     * @return the date time in UTC, or null if the string is not in the canonical form
+     */
+    public static DateTime parseIso8601(String value) {
+        int length = value == null ? 0 : value.length();
+        if (length < 20 || value.charAt(4) != '-' || value.charAt(7) != '-' || value.charAt(10) != 'T'
+                || value.charAt(13) != ':' || value.charAt(16) != ':') {
+            return null;
+        }
+        int year = digits(value, 0, 4);
+        int month = digits(value, 5, 2);
+        int day = digits(value, 8, 2);
+        int hour = digits(value, 11, 2);
+        int minute = digits(value, 14, 2);
+        int second = digits(value, 17, 2);
+        if (year < 0 || !isValid(year, month, day, hour, minute, second)) {
+            return null;
+        }
+        int index = 19;
+        int millis = 0;
+        if (value.charAt(index) == '.') {
+            int start = ++index;
+            while (index < length && index - start < 9 && isDigit(value.charAt(index))) {
+                if (index - start < 3) {
+                    millis = millis * 10 + value.charAt(index) - '0';
+                }
+                index++;
+            }
+            int count = index - start;
+            if (count == 0) {
+                return null;
+            }
+            for (int i = count; i < 3; i++) {
+                millis *= 10;
+            }
+        }
+        int offsetMinutes;
+        if (index == length - 1 && value.charAt(index) == 'Z') {
+            offsetMinutes = 0;
+        } else if (index == length - 6 && (value.charAt(index) == '+' || value.charAt(index) == '-')
+                && value.charAt(index + 3) == ':') {
+            int offsetHours = digits(value, index + 1, 2);
+            int offsetMinute = digits(value, index + 4, 2);
+            if (offsetHours < 0 || offsetHours > 23 || offsetMinute < 0 || offsetMinute > 59) {
+                return null;
+            }
+            offsetMinutes = offsetHours * 60 + offsetMinute;
+            if (value.charAt(index) == '-') {
+                offsetMinutes = -offsetMinutes;
+            }
+        } else {
+            return null;
+        }
+        long instant = daysFromCivil(year, month, day) * MILLIS_PER_DAY
+                + ((hour * 60L + minute - offsetMinutes) * 60L + second) * 1000L + millis;
+        return new DateTime(instant, DateTimeZone.UTC);
+    }
+
+    private static boolean isValid(int year, int month, int day, int hour, int minute, int second) {
+        return month >= 1 && month <= 12 && day >= 1 && day <= daysInMonth(year, month)
+                && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59 && second >= 0 && second <= 59;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static StringBuilder appendTime(StringBuilder builder, int millisOfDay) {
+        int secondOfDay = millisOfDay / 1000;
+        append(builder, secondOfDay / 3600, 2).append(':');
+        append(builder, secondOfDay / 60 % 60, 2).append(':');
+        return append(builder, secondOfDay % 60, 2);
+    }
+
+    private static StringBuilder append(StringBuilder builder, int value, int width) {
+        for (int divisor = width == 4 ? 1000 : width == 3 ? 100 : 10; divisor > 0; divisor /= 10) {
+            builder.append((char) ('0' + value / divisor % 10));
+        }
+        return builder;
+    }
+
+    private static int digits(String value, int start, int count) {
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = value.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            result = result * 10 + c - '0';
+        }
+        return result;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int indexOf(String[] names, String value, int start) {
+        for (int i = 0; i != names.length; i++) {
+            if (value.startsWith(names[i], start)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long floorDiv(long x, long y) {
+        long result = x / y;
+        if ((x % y != 0) && ((x ^ y) < 0)) {
+            result--;
+        }
+        return result;
+    }
+
+    /**
+     * @return the day of week of the epoch day, 0 being Sunday
+     */
+    private static int dayOfWeek(long days) {
+        return (int) ((days % 7 + 11) % 7);
+    }
+
+    /**
+     * @return the year, month and day of the epoch day in the proleptic Gregorian calendar
+     */
+    private static int[] civilFromDays(long days) {
+        long z = days + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+        int month = (int) (monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+        return new int[] {year, month, day};
+    }
+
+    /**
+     * @return the epoch day of the date in the proleptic Gregorian calendar
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+}
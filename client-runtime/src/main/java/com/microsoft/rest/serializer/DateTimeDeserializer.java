@@ -0,0 +1,61 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.rest.serializer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.joda.cfg.FormatConfig;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.ReadableInstant;
+
+import java.io.IOException;
+
+/**
+ * Custom deserializer for deserializing ISO8601 strings into {@link DateTime} objects.
+ * Canonical strings are parsed without Joda; everything else, including properties
+ * with a custom format, is handled by the Joda module deserializer.
+ */
+public final class DateTimeDeserializer extends com.fasterxml.jackson.datatype.joda.deser.DateTimeDeserializer {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates an instance of DateTimeDeserializer.
+     */
+    public DateTimeDeserializer() {
+        super(DateTime.class, FormatConfig.DEFAULT_DATETIME_PARSER);
+    }
+
+    /**
+     * Gets a module wrapping this deserializer as an adapter for the Jackson
+     * ObjectMapper.
+     *
+     * @return a simple module to be plugged onto Jackson ObjectMapper.
+     */
+    @SuppressWarnings("unchecked")
+    public static SimpleModule getModule() {
+        SimpleModule module = new SimpleModule();
+        module.addDeserializer(DateTime.class, (JsonDeserializer<DateTime>) (JsonDeserializer<?>) new DateTimeDeserializer());
+        return module;
+    }
+
+    @Override
+    public ReadableInstant deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.hasToken(JsonToken.VALUE_STRING) && !_format.isTimezoneExplicit()
+                && _format.shouldAdjustToContextTimeZone(ctxt)
+                && DateTimeZone.forTimeZone(ctxt.getTimeZone()) == DateTimeZone.UTC) {
+            DateTime dateTime = DateTimeCodec.parseIso8601(p.getText());
+            if (dateTime != null) {
+                return dateTime;
+            }
+        }
+        return super.deserialize(p, ctxt);
+    }
+}
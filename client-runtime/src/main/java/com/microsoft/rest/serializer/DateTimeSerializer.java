@@ -39,7 +39,8 @@ public final class DateTimeSerializer extends JsonSerializer<DateTime> {
             jgen.writeNumber(value.getMillis());
         } else {
             value = value.withZone(DateTimeZone.UTC);
-            jgen.writeString(value.toString(ISODateTimeFormat.dateTime()));
+            String formatted = DateTimeCodec.formatIso8601(value);
+            jgen.writeString(formatted != null ? formatted : value.toString(ISODateTimeFormat.dateTime()));
         }
     }
 }
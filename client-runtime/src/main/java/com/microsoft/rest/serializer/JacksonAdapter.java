@@ -8,23 +8,52 @@ package com.microsoft.rest.serializer;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.BeanDescription;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.jsontype.NamedType;
 import com.fasterxml.jackson.databind.type.TypeBindings;
 import com.fasterxml.jackson.datatype.joda.JodaModule;
 import com.google.common.base.CharMatcher;
-import com.google.common.base.Joiner;
+import com.microsoft.rest.Base64Url;
 import com.microsoft.rest.CollectionFormat;
+import com.microsoft.rest.DateTimeRfc1123;
+import com.microsoft.rest.ExpandableStringEnum;
 import com.microsoft.rest.protocol.SerializerAdapter;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+import org.joda.time.format.ISODateTimeFormat;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 /**
  * A serialization helper class wrapped around {@link JacksonConverterFactory} and {@link ObjectMapper}.
@@ -45,16 +74,53 @@ public class JacksonAdapter implements SerializerAdapter<ObjectMapper> {
      */
     private JacksonConverterFactory converterFactory;
 
+    /**
+     * The raw serialized values of the enum constants, indexed by ordinal.
+     */
+    private final ConcurrentMap<Class<?>, String[]> enumValues = new ConcurrentHashMap<>();
+
     /**
      * Creates a new JacksonAdapter instance with default mapper settings.
      */
     public JacksonAdapter() {
-        simpleMapper = initializeObjectMapper(new ObjectMapper());
+        this(new Builder());
+    }
+
+    /**
+     * Creates a new JacksonAdapter instance with the extra modules of a builder
+     * registered on both the flattening and the simple mapper.
+     *
+     * @param builder the builder holding the extra modules
+     */
+    protected JacksonAdapter(Builder builder) {
+        simpleMapper = initializeObjectMapper(new ObjectMapper()).registerModules(builder.modules);
         mapper = initializeObjectMapper(new ObjectMapper())
+                .registerModules(builder.modules)
                 .registerModule(FlatteningSerializer.getModule(simpleMapper()))
                 .registerModule(FlatteningDeserializer.getModule(simpleMapper()));
     }
 
+    /**
+     * Gets the process-wide instance with the default mapper settings. Clients get their
+     * own adapter unless they opt in to this one with
+     * {@code RestClient.Builder.withSerializerAdapter}; the clients that opt in warm the
+     * same serializer caches but also share its mappers, so the mappers must not be
+     * reconfigured: create a new adapter, or configure a copy of its mapper from
+     * {@code serializer().copy()}, to customize them.
+     *
+     * @return the shared {@link JacksonAdapter}
+     */
+    public static JacksonAdapter shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Lazily creates the shared instance on first use.
+     */
+    private static final class SharedHolder {
+        private static final JacksonAdapter INSTANCE = new JacksonAdapter();
+    }
+
     /**
      * Gets a static instance of {@link ObjectMapper} that doesn't handle flattening.
      *
@@ -89,11 +155,14 @@ public class JacksonAdapter implements SerializerAdapter<ObjectMapper> {
         if (object == null) {
             return null;
         }
-        try {
-            return CharMatcher.is('"').trimFrom(serialize(object));
-        } catch (IOException ex) {
-            return null;
+        if (object instanceof String && isPlain((String) object)) {
+            return (String) object;
+        }
+        StringBuilder builder = new StringBuilder();
+        if (appendRaw(builder, object)) {
+            return builder.toString();
         }
+        return serializeRawWithMapper(object);
     }
 
     @Override
@@ -101,12 +170,244 @@ public class JacksonAdapter implements SerializerAdapter<ObjectMapper> {
         if (list == null) {
             return null;
         }
-        List<String> serialized = new ArrayList<>();
+        StringBuilder builder = new StringBuilder();
+        String delimiter = format.getDelimiter();
+        boolean first = true;
         for (Object element : list) {
-            String raw = serializeRaw(element);
-            serialized.add(raw != null ? raw : "");
+            if (!first) {
+                builder.append(delimiter);
+            }
+            first = false;
+            if (element != null && !appendRaw(builder, element)) {
+                String raw = serializeRawWithMapper(element);
+                if (raw != null) {
+                    builder.append(raw);
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private String serializeRawWithMapper(Object object) {
+        try {
+            return CharMatcher.is('"').trimFrom(serialize(object));
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Appends the raw serialized value of the common scalar types used in path,
+     * query and header parameters, without going through the object mapper.
+     *
+     * @param builder the builder to append to
+     * @param object the non-null object to serialize
+     * @return false if the type is not handled and the object mapper must be used
+     */
+    private boolean appendRaw(StringBuilder builder, Object object) {
+        if (object instanceof String) {
+            return appendPlain(builder, (String) object);
+        } else if (object instanceof Integer) {
+            builder.append(((Integer) object).intValue());
+        } else if (object instanceof Long) {
+            builder.append(((Long) object).longValue());
+        } else if (object instanceof Boolean) {
+            builder.append(((Boolean) object).booleanValue());
+        } else if (object instanceof Double) {
+            builder.append(((Double) object).doubleValue());
+        } else if (object instanceof Float) {
+            builder.append(((Float) object).floatValue());
+        } else if (object instanceof Short || object instanceof Byte
+                || object instanceof BigInteger || object instanceof BigDecimal) {
+            builder.append(object.toString());
+        } else if (object instanceof Enum) {
+            Enum<?> value = (Enum<?>) object;
+            String raw = enumValues(value.getDeclaringClass())[value.ordinal()];
+            if (raw == null) {
+                return false;
+            }
+            builder.append(raw);
+        } else if (object instanceof ExpandableStringEnum) {
+            return appendPlain(builder, object.toString());
+        } else if (object instanceof Base64Url) {
+            builder.append(object.toString());
+        } else if (serializer().isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            return false;
+        } else if (object instanceof DateTime) {
+            DateTime dateTime = ((DateTime) object).withZone(DateTimeZone.UTC);
+            if (!DateTimeCodec.appendIso8601(builder, dateTime)) {
+                builder.append(dateTime.toString(ISODateTimeFormat.dateTime()));
+            }
+        } else if (object instanceof LocalDate) {
+            builder.append(ISODateTimeFormat.date().print((LocalDate) object));
+        } else if (object instanceof DateTimeRfc1123) {
+            builder.append(object.toString());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private String[] enumValues(Class<?> enumClass) {
+        String[] values = enumValues.get(enumClass);
+        if (values == null) {
+            Object[] constants = enumClass.getEnumConstants();
+            values = new String[constants.length];
+            for (int i = 0; i != constants.length; i++) {
+                values[i] = serializeRawWithMapper(constants[i]);
+            }
+            enumValues.putIfAbsent(enumClass, values);
+        }
+        return values;
+    }
+
+    private static boolean appendPlain(StringBuilder builder, String value) {
+        if (value == null || !isPlain(value)) {
+            return false;
+        }
+        builder.append(value);
+        return true;
+    }
+
+    /**
+     * @return true if the object mapper writes the string as is, between quotes
+     */
+    private static boolean isPlain(String value) {
+        for (int i = 0; i != value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Resolves the serializers and deserializers of the given types, and of all the
+     * types reachable from their properties and subtypes, in both the flattening and
+     * the simple mapper. This moves the cost of the introspection from the first
+     * request using each model to startup; it can be called from a background thread.
+     *
+     * @param rootTypes the model types to prepare, such as {@code Foo.class} or a
+     *                  parameterized {@code PageImpl<Foo>} type
+     * @return the number of types prepared and the time it took
+     */
+    public WarmUpSummary warmUp(Type... rootTypes) {
+        long start = System.nanoTime();
+        Set<JavaType> visited = new HashSet<>();
+        Deque<JavaType> pending = new ArrayDeque<>();
+        for (Type rootType : rootTypes) {
+            pending.add(constructJavaType(rootType));
+        }
+        int typeCount = 0;
+        while (!pending.isEmpty()) {
+            JavaType type = pending.poll();
+            if (type.isPrimitive() || !visited.add(type)) {
+                continue;
+            }
+            if (type.getContentType() != null) {
+                pending.add(type.getContentType());
+            }
+            if (type.getKeyType() != null) {
+                pending.add(type.getKeyType());
+            }
+            String className = type.getRawClass().getName();
+            if (className.startsWith("java.lang.")) {
+                continue;
+            }
+            if (warmUp(mapper, type) & warmUp(simpleMapper, type)) {
+                typeCount++;
+            }
+            if (!type.isContainerType() && !type.isReferenceType() && !type.isEnumType()
+                    && !className.startsWith("java.") && !className.startsWith("org.joda.")) {
+                SerializationConfig config = mapper.getSerializationConfig();
+                try {
+                    BeanDescription description = config.introspect(type);
+                    for (BeanPropertyDefinition property : description.findProperties()) {
+                        pending.add(property.getPrimaryType());
+                    }
+                    for (NamedType subtype : config.getSubtypeResolver().collectAndResolveSubtypesByClass(config, description.getClassInfo())) {
+                        if (subtype.getType() != type.getRawClass()) {
+                            pending.add(mapper.getTypeFactory().constructType(subtype.getType()));
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    // not a bean Jackson can introspect, nothing reachable from it
+                }
+            }
+        }
+        return new WarmUpSummary(typeCount, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Prepares all the classes in a package and its sub-packages, see {@link #warmUp(Type...)}.
+     *
+     * @param packageName the name of the package containing the models
+     * @return the number of types prepared and the time it took
+     * @throws IOException if the package cannot be read from the class path
+     */
+    public WarmUpSummary warmUp(String packageName) throws IOException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = JacksonAdapter.class.getClassLoader();
+        }
+        String path = packageName.replace('.', '/');
+        Set<String> classNames = new TreeSet<>();
+        Enumeration<URL> resources = classLoader.getResources(path);
+        while (resources.hasMoreElements()) {
+            URL url = resources.nextElement();
+            if ("file".equals(url.getProtocol())) {
+                findClassNames(new File(URLDecoder.decode(url.getPath(), "UTF-8")), packageName, classNames);
+            } else if ("jar".equals(url.getProtocol())) {
+                JarURLConnection connection = (JarURLConnection) url.openConnection();
+                connection.setUseCaches(false);
+                try (JarFile jarFile = connection.getJarFile()) {
+                    Enumeration<JarEntry> entries = jarFile.entries();
+                    while (entries.hasMoreElements()) {
+                        String name = entries.nextElement().getName();
+                        if (name.startsWith(path + "/") && name.endsWith(".class")) {
+                            classNames.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+                        }
+                    }
+                }
+            }
+        }
+        List<Type> classes = new ArrayList<>();
+        for (String className : classNames) {
+            try {
+                Class<?> clazz = Class.forName(className, false, classLoader);
+                if (!clazz.isInterface() && !clazz.isAnonymousClass() && !clazz.isLocalClass() && !clazz.isSynthetic()
+                        && !className.endsWith(".package-info")) {
+                    classes.add(clazz);
+                }
+            } catch (ClassNotFoundException | LinkageError e) {
+                // not loadable on its own, skip it
+            }
+        }
+        return warmUp(classes.toArray(new Type[classes.size()]));
+    }
+
+    private static void findClassNames(File directory, String packageName, Set<String> classNames) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                findClassNames(file, packageName + "." + file.getName(), classNames);
+            } else if (file.getName().endsWith(".class")) {
+                classNames.add(packageName + "." + file.getName().substring(0, file.getName().length() - ".class".length()));
+            }
+        }
+    }
+
+    private static boolean warmUp(ObjectMapper mapper, JavaType type) {
+        try {
+            mapper.getSerializerProviderInstance().findTypedValueSerializer(type, true, null);
+            return mapper.canDeserialize(type);
+        } catch (JsonMappingException | RuntimeException e) {
+            return false;
         }
-        return Joiner.on(format.getDelimiter()).join(serialized);
     }
 
     private JavaType constructJavaType(final Type type) {
@@ -148,7 +449,9 @@ public class JacksonAdapter implements SerializerAdapter<ObjectMapper> {
                 .registerModule(new JodaModule())
                 .registerModule(ByteArraySerializer.getModule())
                 .registerModule(Base64UrlSerializer.getModule())
+                .registerModule(Base64UrlDeserializer.getModule())
                 .registerModule(DateTimeSerializer.getModule())
+                .registerModule(DateTimeDeserializer.getModule())
                 .registerModule(DateTimeRfc1123Serializer.getModule())
                 .registerModule(HeadersSerializer.getModule());
         mapper.setVisibility(mapper.getSerializationConfig().getDefaultVisibilityChecker()
@@ -158,4 +461,78 @@ public class JacksonAdapter implements SerializerAdapter<ObjectMapper> {
                 .withIsGetterVisibility(JsonAutoDetect.Visibility.NONE));
         return mapper;
     }
+
+    /**
+     * The builder class for a {@link JacksonAdapter} with extra Jackson modules.
+     */
+    public static class Builder {
+        private static final String AFTERBURNER_MODULE = "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+        private static final String BLACKBIRD_MODULE = "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
+
+        /** The extra modules to register on both mappers. */
+        private final List<Module> modules = new ArrayList<>();
+
+        /**
+         * Registers an extra module on both the flattening and the simple mapper.
+         *
+         * @param module the Jackson module
+         * @return the builder itself for chaining
+         */
+        public Builder withModule(Module module) {
+            if (module == null) {
+                throw new NullPointerException("module == null");
+            }
+            modules.add(module);
+            return this;
+        }
+
+        /**
+         * Replaces the reflective access of model properties with generated bytecode
+         * where the modules can: default constructors, setters, getters and fields
+         * that are not private, of classes that are not private. Private members,
+         * which the generated models bind through field visibility ANY, are still
+         * accessed reflectively, and on Java 9 and later Afterburner only
+         * accelerates public members. Flattened models are unaffected either way.
+         * Blackbird is used on Java 9 and later and Afterburner before, falling back
+         * to whichever one is available. Neither is a dependency of this library:
+         * add jackson-module-blackbird or jackson-module-afterburner matching the
+         * jackson-databind version to the class path.
+         *
+         * @return the builder itself for chaining
+         * @throws IllegalStateException if neither module is on the class path
+         */
+        public Builder withBytecodeAcceleration() {
+            boolean java8 = System.getProperty("java.specification.version", "").startsWith("1.");
+            Module module = java8
+                    ? loadModule(AFTERBURNER_MODULE, BLACKBIRD_MODULE)
+                    : loadModule(BLACKBIRD_MODULE, AFTERBURNER_MODULE);
+            if (module == null) {
+                throw new IllegalStateException("Bytecode acceleration requires jackson-module-blackbird or "
+                        + "jackson-module-afterburner on the class path.");
+            }
+            return withModule(module);
+        }
+
+        private static Module loadModule(String... classNames) {
+            for (String className : classNames) {
+                try {
+                    return (Module) Class.forName(className).newInstance();
+                } catch (ClassNotFoundException | LinkageError e) {
+                    // try the next one
+                } catch (InstantiationException | IllegalAccessException e) {
+                    throw new IllegalStateException("Unable to create " + className, e);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Builds a JacksonAdapter.
+         *
+         * @return a {@link JacksonAdapter}
+         */
+        public JacksonAdapter build() {
+            return new JacksonAdapter(this);
+        }
+    }
 }
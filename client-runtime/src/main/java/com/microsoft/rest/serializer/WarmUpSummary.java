@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.rest.serializer;
+
+/**
+ * The outcome of a {@link JacksonAdapter} warm-up.
+ */
+public final class WarmUpSummary {
+    /** The number of types whose serializers and deserializers were resolved. */
+    private final int typeCount;
+    /** The time the warm-up took in milliseconds. */
+    private final long elapsedMillis;
+
+    WarmUpSummary(int typeCount, long elapsedMillis) {
+        this.typeCount = typeCount;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return the number of types whose serializers and deserializers were resolved
+     */
+    public int typeCount() {
+        return typeCount;
+    }
+
+    /**
+     * @return the time the warm-up took in milliseconds
+     */
+    public long elapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "WarmUpSummary{types=" + typeCount + ", elapsedMillis=" + elapsedMillis + "}";
+    }
+}
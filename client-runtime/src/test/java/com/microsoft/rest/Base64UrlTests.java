@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.rest;
+
+import com.google.common.io.BaseEncoding;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.microsoft.rest.serializer.JacksonAdapter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class Base64UrlTests {
+    @Test
+    public void encodeAndDecodeMatchGuava() throws Exception {
+        Random random = new Random(42);
+        for (int length = 0; length < 200; length++) {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+            String expected = BaseEncoding.base64Url().omitPadding().encode(bytes);
+            Base64Url encoded = Base64Url.encode(bytes);
+            Assert.assertEquals(expected, encoded.toString());
+            Assert.assertArrayEquals(expected.getBytes(), encoded.encodedBytes());
+
+            Base64Url padded = new JacksonAdapter().<Base64Url>deserialize("\"" + BaseEncoding.base64Url().encode(bytes) + "\"", Base64Url.class);
+            Assert.assertArrayEquals(bytes, padded.decodedBytes());
+            Assert.assertArrayEquals(bytes, encoded.decodedBytes());
+        }
+    }
+
+    @Test
+    public void jsonRoundTrip() throws Exception {
+        JacksonAdapter adapter = new JacksonAdapter();
+        byte[] bytes = new byte[] {(byte) 0xfb, (byte) 0xff, 1, 2};
+        Holder holder = new Holder();
+        holder.value = Base64Url.encode(bytes);
+
+        String json = adapter.serialize(holder);
+        Assert.assertEquals("{\"value\":\"-_8BAg\"}", json);
+        Assert.assertArrayEquals(bytes, adapter.<Holder>deserialize(json, Holder.class).value.decodedBytes());
+        Assert.assertNull(adapter.<Holder>deserialize("{\"value\":null}", Holder.class).value);
+    }
+
+    @Test
+    public void invalidInputIsRejectedWhenDecoded() throws Exception {
+        JacksonAdapter adapter = new JacksonAdapter();
+        for (String invalid : new String[] {"+/8BAg", "-_8BA", "-_8B Ag"}) {
+            Base64Url base64Url = adapter.deserialize("\"" + invalid + "\"", Base64Url.class);
+            Assert.assertEquals(invalid, base64Url.toString());
+            try {
+                base64Url.decodedBytes();
+                Assert.fail(invalid);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test(expected = InvalidFormatException.class)
+    public void nonAsciiInputIsRejected() throws Exception {
+        new JacksonAdapter().deserialize("\"-_8Bé\"", Base64Url.class);
+    }
+
+    @Test
+    public void encodedValuesAreSerializedAsTheyAre() throws Exception {
+        JacksonAdapter adapter = new JacksonAdapter();
+        for (String encoded : new String[] {"-_8BAg==", "+/8BA"}) {
+            Holder holder = adapter.deserialize("{\"value\":\"" + encoded + "\"}", Holder.class);
+            Assert.assertEquals("{\"value\":\"" + encoded + "\"}", adapter.serialize(holder));
+            Assert.assertEquals(encoded, adapter.serializeRaw(holder.value));
+        }
+    }
+
+    @Test
+    public void arraysAreNotShared() {
+        byte[] bytes = new byte[] {1, 2, 3};
+        Base64Url base64Url = Base64Url.encode(bytes);
+        bytes[0] = 9;
+        Assert.assertArrayEquals(new byte[] {1, 2, 3}, base64Url.decodedBytes());
+        base64Url.decodedBytes()[1] = 9;
+        Assert.assertArrayEquals(new byte[] {1, 2, 3}, base64Url.decodedBytes());
+        Assert.assertEquals("AQID", base64Url.toString());
+    }
+
+    private static class Holder {
+        private Base64Url value;
+    }
+}
@@ -8,6 +8,9 @@ package com.microsoft.rest;
 
 import com.microsoft.rest.ServiceResponseBuilder.Factory;
 import com.microsoft.rest.serializer.JacksonAdapter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
 import okhttp3.Dispatcher;
 import okhttp3.Interceptor;
 import okhttp3.MediaType;
@@ -24,8 +27,12 @@ import rx.functions.Func1;
 import rx.schedulers.Schedulers;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class ConnectionPoolTests {
     // Simulates a server with response latency of 1 second. A connection pool
@@ -160,6 +167,67 @@ public class ConnectionPoolTests {
         Assert.assertTrue(stopWatch.getTime() > 2000);
     }
 
+    // Cancelling calls in flight against a real socket must close their
+    // connections right away instead of returning them to the pool.
+    @Test
+    public void cancelledCallsReleaseConnections() throws Exception {
+        final int count = 20;
+        final CountDownLatch received = new CountDownLatch(count);
+        final CountDownLatch release = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), count);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                received.countDown();
+                try {
+                    release.await(30, TimeUnit.SECONDS);
+                    byte[] body = "azure rocks".getBytes();
+                    exchange.sendResponseHeaders(200, body.length);
+                    exchange.getResponseBody().write(body);
+                } catch (InterruptedException | IOException e) {
+                    // client went away
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+        try {
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequestsPerHost(count);
+            RestClient restClient = new RestClient.Builder()
+                    .withBaseUrl("http://localhost:" + server.getAddress().getPort())
+                    .withSerializerAdapter(new JacksonAdapter())
+                    .withResponseBuilderFactory(new Factory())
+                    .withDispatcher(dispatcher)
+                    .build();
+            Service service = restClient.retrofit().create(Service.class);
+            List<ServiceFuture<retrofit2.Response<ResponseBody>>> futures = new ArrayList<>();
+            for (int i = 0; i != count; i++) {
+                futures.add(ServiceFuture.fromBody(service.getAsync().subscribeOn(Schedulers.io()), null));
+            }
+            Assert.assertTrue(received.await(10, TimeUnit.SECONDS));
+
+            for (ServiceFuture<retrofit2.Response<ResponseBody>> future : futures) {
+                Assert.assertTrue(future.cancel(true));
+                Assert.assertTrue(future.isCancelled());
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (System.currentTimeMillis() < deadline
+                    && (restClient.httpClient().connectionPool().connectionCount() > 0
+                    || dispatcher.runningCallsCount() > 0)) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(0, restClient.httpClient().connectionPool().connectionCount());
+            Assert.assertEquals(0, dispatcher.runningCallsCount());
+            restClient.close();
+        } finally {
+            release.countDown();
+            server.stop(0);
+        }
+    }
+
     private interface Service {
         @GET("/")
         Observable<retrofit2.Response<ResponseBody>> getAsync();
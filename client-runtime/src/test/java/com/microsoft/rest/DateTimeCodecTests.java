@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.joda.JodaModule;
+import com.microsoft.rest.serializer.DateTimeCodec;
+import com.microsoft.rest.serializer.JacksonAdapter;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+public class DateTimeCodecTests {
+    private static final DateTimeFormatter RFC1123 =
+            DateTimeFormat.forPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'").withZoneUTC().withLocale(Locale.US);
+    private static final long MAX_MILLIS = new DateTime(9999, 12, 31, 23, 59, 59, 999, DateTimeZone.UTC).getMillis();
+    private static final long MIN_MILLIS = new DateTime(0, 1, 1, 0, 0, 0, 0, DateTimeZone.UTC).getMillis();
+
+    @Test
+    public void formatMatchesJoda() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            DateTime dateTime = new DateTime(MIN_MILLIS + (long) (random.nextDouble() * (MAX_MILLIS - MIN_MILLIS)), DateTimeZone.UTC);
+            String iso = dateTime.toString(ISODateTimeFormat.dateTime());
+            String rfc1123 = RFC1123.print(dateTime);
+            Assert.assertEquals(iso, DateTimeCodec.formatIso8601(dateTime));
+            Assert.assertEquals(rfc1123, DateTimeCodec.formatRfc1123(dateTime));
+            Assert.assertEquals(dateTime, DateTimeCodec.parseIso8601(iso));
+            Assert.assertEquals(RFC1123.parseDateTime(rfc1123), DateTimeCodec.parseRfc1123(rfc1123));
+        }
+        Assert.assertNull(DateTimeCodec.formatIso8601(new DateTime(10000, 1, 1, 0, 0, DateTimeZone.UTC)));
+        Assert.assertNull(DateTimeCodec.formatRfc1123(new DateTime(-1, 12, 31, 0, 0, DateTimeZone.UTC)));
+    }
+
+    @Test
+    public void rfc1123FallsBackToJoda() {
+        for (String value : Arrays.asList("Tue, 01 May 2018 10:20:30 GMT", "Wed, 01 May 2018 10:20:30 GMT",
+                "tue, 01 MAY 2018 10:20:30 GMT", "Tue, 1 May 2018 10:20:30 GMT")) {
+            Assert.assertEquals(value, DateTime.parse(value, RFC1123), new DateTimeRfc1123(value).dateTime());
+        }
+        for (String value : Arrays.asList("Tue, 31 Feb 2018 10:20:30 GMT", "Tue, 01 May 2018 24:20:30 GMT", "120")) {
+            try {
+                new DateTimeRfc1123(value);
+                Assert.fail(value);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        DateTime dateTime = new DateTime(2018, 5, 1, 10, 20, 30, DateTimeZone.forOffsetHours(-7));
+        Assert.assertEquals(RFC1123.print(dateTime), new DateTimeRfc1123(dateTime).toString());
+    }
+
+    @Test
+    public void deserializeMatchesJodaModule() throws Exception {
+        ObjectMapper joda = new ObjectMapper().registerModule(new JodaModule());
+        JacksonAdapter adapter = new JacksonAdapter();
+        for (String value : Arrays.asList("2018-05-01T10:20:30Z", "2018-05-01T10:20:30.1Z", "2018-05-01T10:20:30.123456789Z",
+                "2018-05-01T10:20:30.123-07:00", "2016-02-29T23:59:59.999+14:00", "0001-01-01T00:00:00Z",
+                "2018-05-01T10:20Z", "2018-05-01", "2018-05-01T10:20:30", "2018-05-01T10:20:30.123+0530",
+                "2018-05-01T10:20:30.1234567890Z", "2018-05-01t10:20:30z", "2018-05-01T10:20:30Z[UTC]")) {
+            String json = "\"" + value + "\"";
+            Object expected;
+            Object actual;
+            try {
+                expected = joda.readValue(json, DateTime.class);
+            } catch (IllegalArgumentException e) {
+                expected = e.getMessage();
+            }
+            try {
+                actual = adapter.deserialize(json, DateTime.class);
+            } catch (IllegalArgumentException e) {
+                actual = e.getMessage();
+            }
+            Assert.assertEquals(value, expected, actual);
+        }
+        Assert.assertEquals(new DateTime(1525170030123L, DateTimeZone.UTC), adapter.deserialize("1525170030123", DateTime.class));
+    }
+}
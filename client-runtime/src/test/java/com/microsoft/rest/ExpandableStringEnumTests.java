@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.rest;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ExpandableStringEnumTests {
+    @Test
+    public void lookupIsCaseInsensitivePerClass() {
+        Color red = Color.fromString("Red");
+        Assert.assertSame(red, Color.fromString("Red"));
+        Assert.assertSame(red, Color.fromString("RED"));
+        Assert.assertSame(red, Color.fromString("red"));
+        Assert.assertEquals("Red", Color.fromString("rEd").toString());
+
+        Shape red2 = Shape.fromString("Red");
+        Assert.assertNotSame(red, red2);
+        Assert.assertTrue(Color.values().contains(red));
+        Assert.assertFalse(Color.values().contains(red2));
+        Assert.assertNull(Color.fromString(null));
+    }
+
+    @Test
+    public void concurrentRegistrationReturnsSameInstance() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int i = 0; i < 100; i++) {
+                final String name = "Concurrent" + i;
+                List<Future<Color>> futures = new ArrayList<>();
+                for (int j = 0; j < 8; j++) {
+                    futures.add(executor.submit(new Callable<Color>() {
+                        @Override
+                        public Color call() {
+                            return Color.fromString(name);
+                        }
+                    }));
+                }
+                Color first = futures.get(0).get();
+                for (Future<Color> future : futures) {
+                    Assert.assertSame(first, future.get());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public static final class Color extends ExpandableStringEnum<Color> {
+        public static Color fromString(String name) {
+            return fromString(name, Color.class);
+        }
+
+        public static Collection<Color> values() {
+            return values(Color.class);
+        }
+    }
+
+    public static final class Shape extends ExpandableStringEnum<Shape> {
+        public static Shape fromString(String name) {
+            return fromString(name, Shape.class);
+        }
+    }
+}
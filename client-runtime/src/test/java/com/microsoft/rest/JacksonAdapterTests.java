@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.rest;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Joiner;
+import com.google.common.reflect.TypeToken;
+import com.microsoft.rest.serializer.JacksonAdapter;
+import com.microsoft.rest.serializer.JsonFlatten;
+import com.microsoft.rest.serializer.WarmUpSummary;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class JacksonAdapterTests {
+    private static final List<Object> VALUES = Arrays.<Object>asList(
+            "2018-05-01", "", "with space", "quote\"inside", "\"quoted\"", "back\\slash", "new\nline", "unicodé",
+            42, -7L, (short) 3, (byte) 1, true, false, 1.5d, 1.0E10d, Double.NaN, 0.1f,
+            new BigInteger("123456789012345678901234567890"), new BigDecimal("1.50"),
+            PlainEnum.FIRST_VALUE, JsonValueEnum.SECOND, TestStringEnum.fromString("Standard_LRS"),
+            new DateTime(2018, 5, 1, 10, 20, 30, 123, DateTimeZone.forOffsetHours(-7)),
+            new LocalDate(2018, 5, 1),
+            new DateTimeRfc1123(new DateTime(2018, 5, 1, 10, 20, 30, DateTimeZone.UTC)),
+            Base64Url.encode(new byte[] {(byte) 0xfb, (byte) 0xff, 1, 2}),
+            'c', Arrays.asList(1, 2));
+
+    @Test
+    public void serializeRawMatchesObjectMapper() throws Exception {
+        JacksonAdapter adapter = new JacksonAdapter();
+        for (Object value : VALUES) {
+            Assert.assertEquals(String.valueOf(value), serializeRawWithMapper(adapter, value), adapter.serializeRaw(value));
+        }
+        Assert.assertNull(adapter.serializeRaw(null));
+    }
+
+    @Test
+    public void serializeListMatchesObjectMapper() throws Exception {
+        JacksonAdapter adapter = new JacksonAdapter();
+        List<Object> list = new ArrayList<>(VALUES);
+        list.add(null);
+        List<String> expected = new ArrayList<>();
+        for (Object value : list) {
+            String raw = value == null ? null : serializeRawWithMapper(adapter, value);
+            expected.add(raw != null ? raw : "");
+        }
+        for (CollectionFormat format : CollectionFormat.values()) {
+            Assert.assertEquals(Joiner.on(format.getDelimiter()).join(expected), adapter.serializeList(list, format));
+        }
+        Assert.assertNull(adapter.serializeList(null, CollectionFormat.CSV));
+    }
+
+    @Test
+    public void builderModulesAreRegisteredOnBothMappers() throws Exception {
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(PlainEnum.class, new JsonSerializer<PlainEnum>() {
+            @Override
+            public void serialize(PlainEnum value, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+                jgen.writeString("custom");
+            }
+        });
+        JacksonAdapter adapter = new JacksonAdapter.Builder().withModule(module).build();
+        Assert.assertEquals("\"custom\"", adapter.serialize(PlainEnum.FIRST_VALUE));
+        Assert.assertEquals("\"custom\"", adapter.serializer().writeValueAsString(PlainEnum.FIRST_VALUE));
+        Assert.assertEquals("custom", adapter.serializeRaw(PlainEnum.FIRST_VALUE));
+    }
+
+    @Test
+    public void bytecodeAccelerationKeepsFlattening() throws Exception {
+        JacksonAdapter adapter = new JacksonAdapter.Builder().withBytecodeAcceleration().build();
+
+        String json = "{\"properties\":{\"inner\":{\"name\":\"a\"}},\"inners\":[{\"name\":\"b\"}],\"kind\":\"FIRST_VALUE\"}";
+        Outer outer = adapter.deserialize(json, Outer.class);
+        Assert.assertEquals("a", outer.inner.name);
+        Assert.assertEquals("b", outer.inners.get(0).name);
+        Assert.assertEquals(PlainEnum.FIRST_VALUE, outer.kind);
+        Assert.assertEquals(new JacksonAdapter().serialize(outer), adapter.serialize(outer));
+        Assert.assertEquals(adapter.serialize(outer), adapter.serialize(adapter.<Outer>deserialize(adapter.serialize(outer), Outer.class)));
+
+        // public members, which Afterburner does generate accessors for
+        AcceleratedModel model = adapter.deserialize("{\"properties\":{\"name\":\"a\",\"size\":3}}", AcceleratedModel.class);
+        Assert.assertEquals("a", model.name);
+        Assert.assertEquals(3, model.size);
+        Assert.assertEquals("{\"properties\":{\"name\":\"a\",\"size\":3}}", adapter.serialize(model));
+    }
+
+    @Test
+    public void warmUpPreparesReachableModels() throws Exception {
+        JacksonAdapter adapter = new JacksonAdapter();
+        Type pageType = new TypeToken<Page<Outer>>() { }.getType();
+        WarmUpSummary summary = adapter.warmUp(pageType);
+        // Page<Outer>, List<Outer>, Outer, Inner, List<Inner>, Map<String, Inner>, PlainEnum, DateTime
+        Assert.assertEquals(summary.toString(), 8, summary.typeCount());
+
+        Page<Outer> page = adapter.deserialize(
+                "{\"items\":[{\"properties\":{\"inner\":{\"name\":\"a\"}},\"inners\":[{\"name\":\"b\"}]}]}", pageType);
+        Assert.assertEquals("a", page.items.get(0).inner.name);
+        Assert.assertEquals("b", page.items.get(0).inners.get(0).name);
+        Assert.assertTrue(adapter.warmUp("com.microsoft.rest.serializer").typeCount() > 0);
+    }
+
+    private static String serializeRawWithMapper(JacksonAdapter adapter, Object value) throws Exception {
+        return CharMatcher.is('"').trimFrom(adapter.serialize(value));
+    }
+
+    private enum PlainEnum {
+        FIRST_VALUE
+    }
+
+    private enum JsonValueEnum {
+        SECOND("second-value");
+
+        private final String value;
+
+        JsonValueEnum(String value) {
+            this.value = value;
+        }
+
+        @JsonValue
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+
+    private static class Page<T> {
+        private List<T> items;
+    }
+
+    @JsonFlatten
+    private static class Outer {
+        @JsonProperty("properties.inner")
+        private Inner inner;
+        private List<Inner> inners;
+        private Map<String, Inner> innersByName;
+        private PlainEnum kind;
+        private DateTime created;
+    }
+
+    private static class Inner {
+        private String name;
+    }
+
+    @JsonFlatten
+    public static class AcceleratedModel {
+        @JsonProperty("properties.name")
+        public String name;
+        @JsonProperty("properties.size")
+        public int size;
+    }
+
+    public static final class TestStringEnum extends ExpandableStringEnum<TestStringEnum> {
+        public static TestStringEnum fromString(String name) {
+            return fromString(name, TestStringEnum.class);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.rest;
+
+import com.microsoft.rest.interceptors.RequestCoalescingInterceptor;
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RequestCoalescingTests {
+    @Test
+    public void concurrentIdenticalGetsShareOneCall() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        OkHttpClient client = newClient(count);
+        List<String> bodies = sendConcurrently(client, 10, new Request.Builder()
+                .url("http://localhost/subscriptions/sub/resourceGroups/rg")
+                .header("Authorization", "Bearer token"));
+        Assert.assertEquals(1, count.get());
+        for (String body : bodies) {
+            Assert.assertEquals("azure rocks", body);
+        }
+    }
+
+    @Test
+    public void differentCredentialsAreNotCoalesced() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        OkHttpClient client = newClient(count);
+        sendConcurrently(client, 5, new Request.Builder()
+                .url("http://localhost/")
+                .header("Authorization", "Bearer token1"),
+                new Request.Builder()
+                .url("http://localhost/")
+                .header("Authorization", "Bearer token2"));
+        Assert.assertEquals(2, count.get());
+    }
+
+    @Test
+    public void canOptOutPerRequest() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        OkHttpClient client = newClient(count);
+        sendConcurrently(client, 5, new Request.Builder()
+                .url("http://localhost/")
+                .header(RequestCoalescingInterceptor.COALESCING_HEADER, "false"));
+        Assert.assertEquals(5, count.get());
+    }
+
+    @Test
+    public void responsesOfUnknownLengthAreStreamedAndNotShared() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        RequestCoalescingInterceptor interceptor = new RequestCoalescingInterceptor();
+        OkHttpClient client = newClient(count, interceptor, -1);
+        List<String> bodies = sendConcurrently(client, 5, new Request.Builder().url("http://localhost/"));
+        Assert.assertEquals(5, count.get());
+        for (String body : bodies) {
+            Assert.assertEquals("azure rocks", body);
+        }
+        Assert.assertEquals(0, interceptor.inFlightCount());
+    }
+
+    @Test(timeout = 10000)
+    public void waitingRequestMakesItsOwnCallWhenTheSharedOneIsCancelled() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        OkHttpClient client = newClient(count);
+        Request request = new Request.Builder().url("http://localhost/").build();
+        Call leader = client.newCall(request);
+        Future<String> leaderBody = send(leader);
+        waitFor(count, 1);
+        Future<String> followerBody = send(client.newCall(request));
+        // the follower waits for the leader's call
+        Thread.sleep(100);
+        Assert.assertEquals(1, count.get());
+
+        leader.cancel();
+        try {
+            leaderBody.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IOException);
+        }
+        Assert.assertEquals("azure rocks", followerBody.get());
+        Assert.assertEquals(2, count.get());
+    }
+
+    @Test(timeout = 10000)
+    public void waitingRequestCanBeCancelled() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        OkHttpClient client = newClient(count);
+        Request request = new Request.Builder().url("http://localhost/").build();
+        Future<String> leaderBody = send(client.newCall(request));
+        waitFor(count, 1);
+        Call follower = client.newCall(request);
+        Future<String> followerBody = send(follower);
+        Thread.sleep(100);
+
+        follower.cancel();
+        try {
+            followerBody.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IOException);
+        }
+        Assert.assertFalse(leaderBody.isDone());
+        Assert.assertEquals("azure rocks", leaderBody.get());
+        Assert.assertEquals(1, count.get());
+    }
+
+    private static Future<String> send(final Call call) {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            return executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    Response response = call.execute();
+                    try {
+                        return response.body().string();
+                    } finally {
+                        response.close();
+                    }
+                }
+            });
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void waitFor(AtomicInteger count, int expected) throws InterruptedException {
+        while (count.get() < expected) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static List<String> sendConcurrently(final OkHttpClient client, int count, final Request.Builder... builders) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(count * builders.length);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                for (final Request.Builder builder : builders) {
+                    futures.add(executor.submit(new Callable<String>() {
+                        @Override
+                        public String call() throws Exception {
+                            Response response = client.newCall(builder.build()).execute();
+                            try {
+                                return response.body().string();
+                            } finally {
+                                response.close();
+                            }
+                        }
+                    }));
+                }
+            }
+            List<String> bodies = new ArrayList<>();
+            for (Future<String> future : futures) {
+                bodies.add(future.get());
+            }
+            return bodies;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static OkHttpClient newClient(AtomicInteger count) {
+        return newClient(count, new RequestCoalescingInterceptor(), "azure rocks".length());
+    }
+
+    private static OkHttpClient newClient(final AtomicInteger count, RequestCoalescingInterceptor interceptor, final long contentLength) {
+        return new OkHttpClient.Builder()
+                .addInterceptor(interceptor)
+                .addInterceptor(new Interceptor() {
+                    @Override
+                    public Response intercept(Chain chain) throws IOException {
+                        Assert.assertNull(chain.request().header(RequestCoalescingInterceptor.COALESCING_HEADER));
+                        count.incrementAndGet();
+                        for (int i = 0; i < 50; i++) {
+                            if (chain.call().isCanceled()) {
+                                throw new IOException("Canceled");
+                            }
+                            try {
+                                Thread.sleep(10);
+                            } catch (InterruptedException e) {
+                                throw new IOException(e);
+                            }
+                        }
+                        return new Response.Builder()
+                                .request(chain.request())
+                                .code(200)
+                                .message("OK")
+                                .protocol(Protocol.HTTP_1_1)
+                                .body(ResponseBody.create(MediaType.parse("text/plain"), contentLength, new Buffer().writeUtf8("azure rocks")))
+                                .build();
+                    }
+                })
+                .build();
+    }
+}
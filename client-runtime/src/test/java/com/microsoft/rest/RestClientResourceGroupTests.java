@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.rest;
+
+import com.microsoft.rest.serializer.JacksonAdapter;
+import okhttp3.OkHttpClient;
+import org.junit.Assert;
+import org.junit.Test;
+import retrofit2.Retrofit;
+
+public class RestClientResourceGroupTests {
+    @Test
+    public void clientsShareTransportResources() {
+        RestClientResourceGroup group = new RestClientResourceGroup.Builder().withMaxRequests(16).build();
+        RestClient client1 = newBuilder("https://management.azure.com/").withResourceGroup(group).build();
+        RestClient client2 = newBuilder("https://graph.windows.net/").withResourceGroup(group).build();
+        Assert.assertEquals(2, group.clientCount());
+        Assert.assertSame(group.dispatcher(), client1.httpClient().dispatcher());
+        Assert.assertSame(group.dispatcher(), client2.httpClient().dispatcher());
+        Assert.assertSame(group.connectionPool(), client1.httpClient().connectionPool());
+        Assert.assertSame(group.connectionPool(), client2.httpClient().connectionPool());
+        Assert.assertEquals(16, client1.httpClient().dispatcher().getMaxRequests());
+
+        RestClient client3 = newBuilder("https://management.azure.com/").build();
+        RestClient client4 = newBuilder("https://graph.windows.net/").build();
+        Assert.assertNotSame(client3.httpClient().dispatcher(), client4.httpClient().dispatcher());
+        Assert.assertNotSame(client3.httpClient().connectionPool(), client4.httpClient().connectionPool());
+
+        client1.close();
+        client2.close();
+        client3.close();
+        client4.close();
+        group.close();
+    }
+
+    @Test
+    public void resourcesAreShutDownWhenGroupAndClientsAreClosed() {
+        RestClientResourceGroup group = new RestClientResourceGroup.Builder().build();
+        RestClient client1 = newBuilder("https://management.azure.com/").withResourceGroup(group).build();
+        RestClient client2 = client1.newBuilder().build();
+        Assert.assertSame(group, client2.resourceGroup());
+        Assert.assertEquals(2, group.clientCount());
+
+        client1.close();
+        client1.close();
+        Assert.assertEquals(1, group.clientCount());
+        group.close();
+        Assert.assertFalse(group.dispatcher().executorService().isShutdown());
+        client2.close();
+        Assert.assertEquals(0, group.clientCount());
+        Assert.assertTrue(group.dispatcher().executorService().isShutdown());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cannotBuildClientWithClosedGroup() {
+        RestClientResourceGroup group = new RestClientResourceGroup.Builder().build();
+        group.close();
+        newBuilder("https://management.azure.com/").withResourceGroup(group).build();
+    }
+
+    private static RestClient.Builder newBuilder(String baseUrl) {
+        return new RestClient.Builder(new OkHttpClient.Builder(), new Retrofit.Builder())
+                .withBaseUrl(baseUrl)
+                .withSerializerAdapter(new JacksonAdapter())
+                .withResponseBuilderFactory(new ServiceResponseBuilder.Factory());
+    }
+}
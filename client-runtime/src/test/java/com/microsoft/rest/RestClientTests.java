@@ -9,20 +9,39 @@ package com.microsoft.rest;
 
 import com.microsoft.rest.credentials.BasicAuthenticationCredentials;
 import com.microsoft.rest.credentials.TokenCredentials;
+import com.microsoft.rest.interceptors.BaseUrlHandler;
+import com.microsoft.rest.interceptors.CompositeHeadersInterceptor;
+import com.microsoft.rest.interceptors.CustomHeadersInterceptor;
+import com.microsoft.rest.interceptors.RequestIdHeaderInterceptor;
 import com.microsoft.rest.interceptors.UserAgentInterceptor;
 import com.microsoft.rest.protocol.ResponseBuilder;
 import com.microsoft.rest.protocol.SerializerAdapter;
 import com.microsoft.rest.serializer.JacksonAdapter;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.CookieJar;
 import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.junit.Assert;
 import org.junit.Test;
 import retrofit2.Converter;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class RestClientTests {
     @Test
@@ -167,4 +186,211 @@ public class RestClientTests {
         }
         Assert.assertNotEquals(restClient.httpClient().connectTimeoutMillis(), newClient.httpClient().connectTimeoutMillis());
     }
+
+    @Test
+    public void customHeadersCopyIsUnmodifiable() {
+        CustomHeadersInterceptor interceptor = new CustomHeadersInterceptor("foo", "bar");
+        Map<String, List<String>> headers = interceptor.headersCopy();
+        try {
+            headers.put("baz", Collections.singletonList("qux"));
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        Assert.assertEquals("bar", interceptor.snapshot().get("foo"));
+        interceptor.replaceHeader("foo", "baz");
+        Assert.assertEquals("baz", interceptor.snapshot().get("foo"));
+        Assert.assertEquals(Collections.singletonList("bar"), headers.get("foo"));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void customHeadersChangedThroughTheMapAreApplied() {
+        CustomHeadersInterceptor interceptor = new CustomHeadersInterceptor("foo", "bar");
+        Assert.assertEquals("bar", interceptor.snapshot().get("foo"));
+        Map<String, List<String>> headers = interceptor.headers();
+        headers.put("baz", new ArrayList<>(Collections.singletonList("qux")));
+        Assert.assertEquals("qux", interceptor.snapshot().get("baz"));
+        headers.get("baz").add("quux");
+        Assert.assertEquals("quux", interceptor.snapshot().get("baz"));
+        headers.remove("foo");
+        Assert.assertNull(interceptor.snapshot().get("foo"));
+        interceptor.replaceHeader("baz", "corge");
+        Assert.assertEquals(Collections.singletonList("corge"), headers.get("baz"));
+    }
+
+    @Test
+    public void leanInterceptorChainAppliesHeadersOnce() throws Exception {
+        RestClient restClient = new RestClient.Builder()
+            .withBaseUrl("https://{accountName}.vault.azure.net")
+            .withSerializerAdapter(new JacksonAdapter())
+            .withResponseBuilderFactory(new ServiceResponseBuilder.Factory())
+            .withUserAgent("user")
+            .useLeanInterceptorChain(true)
+            .withInterceptor(new Interceptor() {
+                @Override
+                public Response intercept(Chain chain) throws IOException {
+                    Request request = chain.request();
+                    Assert.assertEquals("https://myvault.vault.azure.net/secrets", request.url().toString());
+                    Assert.assertNull(request.header("x-ms-parameterized-host"));
+                    Assert.assertNotNull(request.header("x-ms-client-request-id"));
+                    Assert.assertEquals("user", request.header("User-Agent"));
+                    Assert.assertEquals("bar", request.header("foo"));
+                    return new Response.Builder()
+                        .request(request)
+                        .code(200)
+                        .message("OK")
+                        .protocol(Protocol.HTTP_1_1)
+                        .body(ResponseBody.create(MediaType.parse("text/plain"), "azure rocks"))
+                        .build();
+                }
+            })
+            .build();
+        restClient.headers().addHeader("foo", "bar");
+        Assert.assertEquals(CookieJar.NO_COOKIES, restClient.httpClient().cookieJar());
+        Assert.assertTrue(restClient.httpClient().interceptors().get(1) instanceof CompositeHeadersInterceptor);
+        for (Interceptor interceptor : restClient.httpClient().interceptors()) {
+            Assert.assertFalse(interceptor instanceof RequestIdHeaderInterceptor);
+            Assert.assertFalse(interceptor instanceof BaseUrlHandler);
+            Assert.assertFalse(interceptor instanceof UserAgentInterceptor);
+        }
+
+        Response response = restClient.httpClient().newCall(new Request.Builder()
+            .url("https://{accountName}.vault.azure.net/secrets")
+            .header("x-ms-parameterized-host", "{accountName}, myvault")
+            .build()).execute();
+        Assert.assertEquals(200, response.code());
+
+        RestClient newClient = restClient.newBuilder().build();
+        Assert.assertEquals(restClient.httpClient().interceptors().size(), newClient.httpClient().interceptors().size());
+        Assert.assertEquals("user", ((CompositeHeadersInterceptor) newClient.httpClient().interceptors().get(1)).userAgent());
+        Assert.assertEquals("bar", newClient.headers().snapshot().get("foo"));
+    }
+
+    @Test
+    public void shutdownWaitsForCallsInFlight() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        RestClient restClient = newSlowClient(started, 500);
+        final CountDownLatch completed = new CountDownLatch(1);
+        restClient.httpClient().newCall(new Request.Builder().url("http://localhost").build()).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+                completed.countDown();
+            }
+        });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        ShutdownSummary summary = restClient.shutdown(10, TimeUnit.SECONDS);
+        Assert.assertTrue(summary.isGraceful());
+        Assert.assertTrue(completed.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(restClient.httpClient().dispatcher().executorService().isTerminated());
+        try {
+            restClient.httpClient().newCall(new Request.Builder().url("http://localhost").build()).execute();
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals("The REST client has been shut down.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void shutdownCancelsCallsAfterTimeout() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        RestClient restClient = newSlowClient(started, 30000);
+        restClient.httpClient().newCall(new Request.Builder().url("http://localhost/slow").build()).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+            }
+        });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        ShutdownSummary summary = restClient.shutdown(200, TimeUnit.MILLISECONDS);
+        Assert.assertFalse(summary.isGraceful());
+        Assert.assertEquals(1, summary.cancelledRequests().size());
+        Assert.assertEquals("/slow", summary.cancelledRequests().get(0).url().encodedPath());
+        Assert.assertTrue(summary.elapsedMillis() < 10000);
+    }
+
+    @Test
+    public void threadFactoryRunsRequests() throws Exception {
+        final Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+        final AtomicReference<Thread> requestThread = new AtomicReference<>();
+        RestClient restClient = new RestClient.Builder()
+                .withBaseUrl("http://localhost")
+                .withSerializerAdapter(new JacksonAdapter())
+                .withResponseBuilderFactory(new ServiceResponseBuilder.Factory())
+                .withThreadFactory(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable);
+                        thread.setDaemon(true);
+                        threads.add(thread);
+                        return thread;
+                    }
+                })
+                .withInterceptor(new Interceptor() {
+                    @Override
+                    public Response intercept(Chain chain) throws IOException {
+                        requestThread.set(Thread.currentThread());
+                        return new Response.Builder()
+                                .request(chain.request())
+                                .code(200)
+                                .message("OK")
+                                .protocol(Protocol.HTTP_1_1)
+                                .body(ResponseBody.create(MediaType.parse("text/plain"), "azure rocks"))
+                                .build();
+                    }
+                })
+                .build();
+        final CountDownLatch completed = new CountDownLatch(1);
+        restClient.httpClient().newCall(new Request.Builder().url("http://localhost").build()).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+                completed.countDown();
+            }
+        });
+        Assert.assertTrue(completed.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(threads.contains(requestThread.get()));
+        restClient.shutdown(5, TimeUnit.SECONDS);
+    }
+
+    private static RestClient newSlowClient(final CountDownLatch started, final long delayInMillis) {
+        return new RestClient.Builder()
+                .withBaseUrl("http://localhost")
+                .withSerializerAdapter(new JacksonAdapter())
+                .withResponseBuilderFactory(new ServiceResponseBuilder.Factory())
+                .withInterceptor(new Interceptor() {
+                    @Override
+                    public Response intercept(Chain chain) throws IOException {
+                        started.countDown();
+                        try {
+                            Thread.sleep(delayInMillis);
+                        } catch (InterruptedException e) {
+                            throw new IOException(e);
+                        }
+                        return new Response.Builder()
+                                .request(chain.request())
+                                .code(200)
+                                .message("OK")
+                                .protocol(Protocol.HTTP_1_1)
+                                .body(ResponseBody.create(MediaType.parse("text/plain"), "azure rocks"))
+                                .build();
+                    }
+                })
+                .build();
+    }
 }
@@ -6,6 +6,7 @@
 
 package com.microsoft.rest;
 
+import com.microsoft.rest.serializer.JacksonAdapter;
 import okhttp3.Interceptor;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
@@ -45,6 +46,21 @@ public class ServiceClientTests {
         Assert.assertEquals(200, response.code());
     }
 
+    @Test
+    public void clientsShareSerializerAdapterOnlyWhenAsked() {
+        ServiceClient first = new ServiceClient("http://localhost", new OkHttpClient.Builder(), new Retrofit.Builder()) { };
+        ServiceClient second = new ServiceClient("http://localhost", new OkHttpClient.Builder(), new Retrofit.Builder()) { };
+        Assert.assertNotSame(first.serializerAdapter(), second.serializerAdapter());
+        Assert.assertNotSame(JacksonAdapter.shared(), first.serializerAdapter());
+
+        RestClient restClient = new RestClient.Builder()
+                .withBaseUrl("http://localhost")
+                .withSerializerAdapter(JacksonAdapter.shared())
+                .withResponseBuilderFactory(new ServiceResponseBuilder.Factory())
+                .build();
+        Assert.assertSame(JacksonAdapter.shared(), restClient.serializerAdapter());
+    }
+
     public class FirstFilter implements Interceptor {
         @Override
         public Response intercept(Chain chain) throws IOException {
@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.rest;
+
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.microsoft.rest.serializer.JacksonAdapter;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.Assert;
+import org.junit.Test;
+import retrofit2.http.GET;
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ServiceFutureTests {
+    @Test
+    public void callbackRunsOnExecutor() throws Exception {
+        final AtomicReference<Thread> executorThread = new AtomicReference<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable);
+                executorThread.set(thread);
+                return thread;
+            }
+        });
+        try {
+            final AtomicReference<Thread> callbackThread = new AtomicReference<>();
+            final CountDownLatch latch = new CountDownLatch(1);
+            ServiceFuture<String> future = ServiceFuture.fromBody(Observable.just("azure rocks"), new ServiceCallback<String>() {
+                @Override
+                public void failure(Throwable t) {
+                }
+
+                @Override
+                public void success(String result) {
+                    callbackThread.set(Thread.currentThread());
+                    latch.countDown();
+                }
+            }, executor);
+            Assert.assertEquals("azure rocks", future.get());
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Assert.assertSame(executorThread.get(), callbackThread.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void cancelComposedFutureCancelsHttpCall() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        RestClient restClient = new RestClient.Builder()
+                .withBaseUrl("http://localhost")
+                .withSerializerAdapter(new JacksonAdapter())
+                .withResponseBuilderFactory(new ServiceResponseBuilder.Factory())
+                .withInterceptor(new Interceptor() {
+                    @Override
+                    public Response intercept(Chain chain) throws IOException {
+                        started.countDown();
+                        for (int i = 0; i < 500 && !chain.call().isCanceled(); i++) {
+                            try {
+                                Thread.sleep(10);
+                            } catch (InterruptedException e) {
+                                // unsubscribing from the IO scheduler also interrupts, keep waiting for the cancel
+                            }
+                        }
+                        if (chain.call().isCanceled()) {
+                            cancelled.countDown();
+                        }
+                        return new Response.Builder()
+                                .request(chain.request())
+                                .code(200)
+                                .message("OK")
+                                .protocol(Protocol.HTTP_1_1)
+                                .body(ResponseBody.create(MediaType.parse("text/plain"), "azure rocks"))
+                                .build();
+                    }
+                })
+                .build();
+        Service service = restClient.retrofit().create(Service.class);
+
+        ServiceFuture<retrofit2.Response<ResponseBody>> future = ServiceFuture.fromBody(
+                service.getAsync().subscribeOn(Schedulers.io()), null, MoreExecutors.directExecutor());
+        ListenableFuture<Integer> code = Futures.transform(future, new Function<retrofit2.Response<ResponseBody>, Integer>() {
+            @Override
+            public Integer apply(retrofit2.Response<ResponseBody> response) {
+                return response.code();
+            }
+        }, MoreExecutors.directExecutor());
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        code.cancel(true);
+        Assert.assertTrue(future.isCancelled());
+        Assert.assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+    }
+
+    private interface Service {
+        @GET("/")
+        Observable<retrofit2.Response<ResponseBody>> getAsync();
+    }
+}